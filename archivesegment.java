@@ -0,0 +1,107 @@
+package com.glsecurity.bot.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Índice de um segmento do arquivo morto de violações: um arquivo NDJSON compactado (gzip) com as violações
+ * de um mês retiradas da tabela {@code violations} por uma execução da retenção.
+ *
+ * <p>{@code rowCount} é atualizado na mesma transação que apaga as linhas do banco, então só as primeiras
+ * {@code rowCount} linhas do arquivo valem; linhas escritas depois disso (uma execução interrompida antes
+ * do commit) continuam no banco e serão arquivadas de novo em outro segmento.</p>
+ */
+@Entity
+@Table(name = "archive_segments", indexes = {
+        @Index(name = "idx_archive_segments_period", columnList = "period")
+})
+public class ArchiveSegment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "file_name", unique = true, nullable = false)
+    private String fileName; // Relativo ao diretório do arquivo morto
+
+    @Column(name = "period", nullable = false, length = 7)
+    private String period; // Mês das violações do segmento ("2025-01")
+
+    @Column(name = "min_timestamp", nullable = false)
+    private LocalDateTime minTimestamp;
+
+    @Column(name = "max_timestamp", nullable = false)
+    private LocalDateTime maxTimestamp;
+
+    @Column(name = "row_count", nullable = false)
+    private long rowCount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Construtor padrão exigido pelo JPA
+    public ArchiveSegment() {
+    }
+
+    public ArchiveSegment(String fileName, String period) {
+        this.fileName = fileName;
+        this.period = period;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    /**
+     * Inclui uma violação arquivada no intervalo do segmento.
+     */
+    public void include(LocalDateTime timestamp) {
+        if (minTimestamp == null || timestamp.isBefore(minTimestamp)) minTimestamp = timestamp;
+        if (maxTimestamp == null || timestamp.isAfter(maxTimestamp)) maxTimestamp = timestamp;
+        rowCount++;
+    }
+
+    /**
+     * @return true se o segmento pode conter violações do período [from, to); limites null não restringem.
+     */
+    public boolean overlaps(LocalDateTime from, LocalDateTime to) {
+        return (from == null || !maxTimestamp.isBefore(from)) && (to == null || minTimestamp.isBefore(to));
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public String getPeriod() {
+        return period;
+    }
+
+    public LocalDateTime getMinTimestamp() {
+        return minTimestamp;
+    }
+
+    public LocalDateTime getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "ArchiveSegment{" +
+               "fileName='" + fileName + '\'' +
+               ", period='" + period + '\'' +
+               ", minTimestamp=" + minTimestamp +
+               ", maxTimestamp=" + maxTimestamp +
+               ", rowCount=" + rowCount +
+               '}';
+    }
+}
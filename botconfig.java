@@ -1,20 +1,49 @@
 package com.glsecurity.bot.config;
 
+import com.glsecurity.bot.filter.ProfanityMatcher;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
 import java.io.File;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Configuração global do bot, lida de {@code bot_config.json}.
+ *
+ * <p>A configuração em uso é um {@link Snapshot} imutável publicado em uma {@link AtomicReference}: cada getter
+ * custa uma leitura volátil, e o matcher de palavras ofensivas compilado vem junto com a lista que o originou.
+ * Recarregar o arquivo ({@link #reload()}, chamado pelo {@link ConfigWatcher}) e os setters montam um snapshot
+ * novo, validam, compilam o matcher fora do caminho das mensagens e só então trocam a referência. Um arquivo
+ * inválido é rejeitado e o snapshot anterior continua valendo. Quem publica passa por uma trava, para que cada
+ * alteração compile o matcher uma única vez; os getters não a tocam.</p>
+ *
+ * <p>Valores usados só na inicialização (threads, capacidades, portas, perfil de persistência) são atualizados no
+ * snapshot, mas só passam a valer no próximo início do bot.</p>
+ */
 public class BotConfig {
     private static final Logger logger = LoggerFactory.getLogger(BotConfig.class);
     private static final String CONFIG_FILE_PATH = "bot_config.json";
-    private static ConfigData configData;
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final List<String> WARNING_TYPES = Arrays.asList("dm", "public", "both");
+    private static final List<String> OVERFLOW_POLICIES = Arrays.asList("block", "drop_oldest", "spill");
+    private static final List<String> PERSISTENCE_PROFILES = Arrays.asList("development", "production");
+    private static final List<String> CACHE_PROFILES = Arrays.asList("default", "lean");
+
+    private static final ConfigData DEFAULTS = new ConfigData();
+    private static final AtomicReference<Snapshot> SNAPSHOT = new AtomicReference<>();
+    private static final Object PUBLISH_LOCK = new Object(); // Serializa leitura do arquivo e setters
 
     // Classe interna para representar a estrutura do JSON
     private static class ConfigData {
@@ -26,6 +55,39 @@ public class BotConfig {
         private boolean auto_delete_warnings;
         private int warning_delete_delay; // Em segundos
         private boolean log_violations; // Novo campo para logging de violações no DB
+        private int settings_cache_size; // Máximo de servidores com configurações em memória
+        private int invite_refresh_minutes; // Intervalo da atualização periódica do cache de convites
+        private int violation_queue_capacity; // Violações aguardando gravação em memória
+        private int violation_batch_size; // Máximo de violações por commit
+        private int violation_flush_interval_ms; // Espera máxima antes de gravar um lote incompleto
+        private String violation_overflow_policy; // block, drop_oldest, spill
+        private int moderation_threads; // Threads de moderação (cada servidor sempre usa a mesma)
+        private int moderation_queue_capacity; // Mensagens aguardando por thread de moderação
+        private int moderation_submit_timeout_ms; // Espera máxima por espaço na fila antes de ignorar a mensagem
+        private String persistence_profile; // development, production
+        private int counter_flush_seconds; // Intervalo de gravação dos contadores agregados de violações
+        private int metrics_port; // Porta do endpoint /metrics (Prometheus); negativa desativa
+        private String metrics_bind_address; // Endereço do endpoint /metrics (local por padrão)
+        private int private_channel_cache_size; // Canais de DM abertos mantidos em cache
+        private int warning_coalesce_window_ms; // Janela de agrupamento de avisos repetidos; negativa desativa
+        private int bulk_delete_window_ms; // Espera para juntar remoções do mesmo canal em uma exclusão em massa; negativa desativa
+        private int flood_table_capacity; // Entradas da tabela de flood (16 bytes cada, memória fixa)
+        private List<String> allowed_domains; // Domínios sempre permitidos em links (e seus subdomínios; "*." só subdomínios)
+        private List<String> blocked_domains; // Domínios sempre bloqueados em links, mesmo com block_links desligado
+        private String blocked_domains_file; // Lista grande de domínios bloqueados (um por linha ou formato hosts)
+        private int panel_port; // Porta do painel de controle (HTTP); negativa desativa
+        private String panel_bind_address; // Endereço do painel (local por padrão)
+        private int panel_threads; // Threads que atendem o painel
+        private String panel_token; // Token exigido pelo painel (Authorization: Bearer); vazio desativa
+        private int retention_days; // Dias que as violações ficam no banco antes do arquivo morto; negativo guarda tudo
+        private int retention_interval_minutes; // Intervalo entre execuções da retenção
+        private int retention_batch_size; // Violações arquivadas e apagadas por transação
+        private String archive_directory; // Diretório dos segmentos compactados do arquivo morto
+        private int shard_count; // Total de shards do bot; 0 usa uma sessão sem sharding, -1 a quantidade recomendada pelo Discord
+        private int shard_first; // Primeiro shard iniciado por este processo
+        private int shard_last; // Último shard iniciado por este processo; -1 vai até o último
+        private int shard_moderation_threads; // Threads de moderação de cada shard (no modo com sharding)
+        private String cache_profile; // default, lean (cache do gateway); lean deixa de pedir o intent GUILD_MEMBERS e não guarda membros
 
         public ConfigData() {
             // Valores padrão
@@ -45,6 +107,64 @@ public class BotConfig {
             this.auto_delete_warnings = true;
             this.warning_delete_delay = 60; // 60 segundos
             this.log_violations = true; // Valor padrão
+            this.settings_cache_size = 10_000;
+            this.invite_refresh_minutes = 30;
+            this.violation_queue_capacity = 10_000;
+            this.violation_batch_size = 200;
+            this.violation_flush_interval_ms = 250;
+            this.violation_overflow_policy = "spill";
+            this.moderation_threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+            this.moderation_queue_capacity = 1_000;
+            this.moderation_submit_timeout_ms = 500;
+            this.persistence_profile = "production";
+            this.counter_flush_seconds = 30;
+            this.metrics_port = 9464;
+            this.metrics_bind_address = "127.0.0.1";
+            this.private_channel_cache_size = 10_000;
+            this.warning_coalesce_window_ms = 5_000;
+            this.bulk_delete_window_ms = 1_000;
+            this.flood_table_capacity = 262_144;
+            this.allowed_domains = Arrays.asList(
+                "youtube.com", "youtu.be", "tenor.com", "giphy.com", "twitch.tv",
+                "discord.com", "discordapp.com", "discordapp.net", "github.com", "wikipedia.org"
+            );
+            this.blocked_domains = new ArrayList<>();
+            this.blocked_domains_file = "blocked_domains.txt";
+            this.panel_port = 8080;
+            this.panel_bind_address = "127.0.0.1";
+            this.panel_threads = 4;
+            this.panel_token = "";
+            this.retention_days = 90;
+            this.retention_interval_minutes = 60;
+            this.retention_batch_size = 500;
+            this.archive_directory = "archive";
+            this.shard_count = 0;
+            this.shard_first = 0;
+            this.shard_last = -1;
+            this.shard_moderation_threads = 2;
+            this.cache_profile = "default"; // O perfil enxuto é opcional: muda os intents e o cache do gateway
+        }
+    }
+
+    /**
+     * Configuração publicada: os valores do arquivo já com os padrões aplicados e o matcher compilado.
+     * Nada aqui é alterado depois da publicação; mudanças criam outro snapshot.
+     */
+    private static final class Snapshot {
+        private final ConfigData data;
+        private final List<String> profaneWords;
+        private final ProfanityMatcher profanityMatcher;
+        private final String source; // JSON dos dados publicados (o que saveConfig grava), para ignorar eventos sem mudança real
+
+        // Reaproveita o matcher do snapshot anterior se a lista de palavras não mudou
+        private Snapshot(ConfigData data, Snapshot previous) {
+            applyDefaults(data);
+            this.data = data;
+            this.profaneWords = Collections.unmodifiableList(new ArrayList<>(data.profane_words));
+            this.profanityMatcher = previous != null && previous.profaneWords.equals(profaneWords)
+                    ? previous.profanityMatcher
+                    : ProfanityMatcher.compile(profaneWords, true);
+            this.source = GSON.toJson(data);
         }
     }
 
@@ -53,33 +173,198 @@ public class BotConfig {
         loadConfig();
     }
 
+    /**
+     * Carrega o arquivo de configuração. Se ele não existir, cria um com os valores padrão; se for inválido,
+     * usa os padrões sem sobrescrever o arquivo (para que o erro possa ser corrigido à mão).
+     */
     public static void loadConfig() {
-        Gson gson = new Gson();
+        synchronized (PUBLISH_LOCK) {
+            loadConfigLocked();
+        }
+    }
+
+    private static void loadConfigLocked() {
         File configFile = new File(CONFIG_FILE_PATH);
 
         if (configFile.exists()) {
-            try (FileReader reader = new FileReader(configFile)) {
-                configData = gson.fromJson(reader, ConfigData.class);
-                // Garantir que novos campos tenham valores padrão se não estiverem no JSON existente
-                if (configData.block_invites == null) configData.block_invites = new ConfigData().block_invites;
-                if (configData.log_violations == null) configData.log_violations = new ConfigData().log_violations;
+            try {
+                publish(read(configFile, SNAPSHOT.get()));
                 logger.info("Configuração carregada de '{}'.", CONFIG_FILE_PATH);
-            } catch (IOException e) {
+            } catch (IOException | IllegalArgumentException e) {
                 logger.error("Erro ao carregar configuração de '{}'. Usando valores padrão. Erro: {}", CONFIG_FILE_PATH, e.getMessage());
-                configData = new ConfigData(); // Usar padrões em caso de erro de leitura
-                saveConfig(); // Tenta salvar para criar um arquivo válido
+                if (SNAPSHOT.get() == null) {
+                    publish(new Snapshot(new ConfigData(), null)); // Usar padrões em caso de erro de leitura
+                }
             }
         } else {
             logger.warn("Arquivo de configuração '{}' não encontrado. Criando com valores padrão.", CONFIG_FILE_PATH);
-            configData = new ConfigData();
+            publish(new Snapshot(new ConfigData(), null));
             saveConfig(); // Salva os valores padrão em um novo arquivo
         }
     }
 
+    /**
+     * Relê o arquivo e troca a configuração em uso se ele for válido e tiver mudado.
+     * @return true se um novo snapshot foi publicado.
+     */
+    public static boolean reload() {
+        synchronized (PUBLISH_LOCK) {
+            return reloadLocked();
+        }
+    }
+
+    private static boolean reloadLocked() {
+        try {
+            Snapshot current = SNAPSHOT.get();
+            Snapshot next = read(new File(CONFIG_FILE_PATH), current);
+            if (current != null && next.source.equals(current.source)) {
+                return false; // Evento do arquivo sem mudança de conteúdo (ex.: o próprio saveConfig)
+            }
+            publish(next);
+            logger.info("Configuração recarregada de '{}'.", CONFIG_FILE_PATH);
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            logger.error("Configuração em '{}' rejeitada; mantendo a anterior. Erro: {}", CONFIG_FILE_PATH, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * @return O caminho do arquivo de configuração.
+     */
+    public static File getConfigFile() {
+        return new File(CONFIG_FILE_PATH);
+    }
+
+    // Lê, valida e compila um snapshot a partir do arquivo; lança IllegalArgumentException se o conteúdo for inválido
+    private static Snapshot read(File configFile, Snapshot previous) throws IOException {
+        String json = new String(Files.readAllBytes(configFile.toPath()), StandardCharsets.UTF_8);
+        ConfigData data;
+        try {
+            data = GSON.fromJson(json, ConfigData.class); // Campos ausentes mantêm os padrões do construtor
+        } catch (JsonParseException e) {
+            throw new IllegalArgumentException("JSON inválido: " + e.getMessage(), e);
+        }
+        if (data == null) {
+            throw new IllegalArgumentException("arquivo vazio");
+        }
+        validate(data);
+        return new Snapshot(data, previous);
+    }
+
+    private static void validate(ConfigData data) {
+        List<String> problems = new ArrayList<>();
+        if (data.profane_words == null || data.profane_words.contains(null)) {
+            problems.add("profane_words deve ser uma lista de palavras");
+        }
+        if (data.warning_type == null || !WARNING_TYPES.contains(data.warning_type.toLowerCase(Locale.ROOT))) {
+            problems.add("warning_type deve ser um de " + WARNING_TYPES);
+        }
+        if (data.warning_delete_delay <= 0) {
+            problems.add("warning_delete_delay deve ser maior que 0");
+        }
+        if (data.violation_overflow_policy != null && !OVERFLOW_POLICIES.contains(data.violation_overflow_policy.toLowerCase(Locale.ROOT))) {
+            problems.add("violation_overflow_policy deve ser um de " + OVERFLOW_POLICIES);
+        }
+        if (data.persistence_profile != null && !PERSISTENCE_PROFILES.contains(data.persistence_profile.toLowerCase(Locale.ROOT))) {
+            problems.add("persistence_profile deve ser um de " + PERSISTENCE_PROFILES);
+        }
+        if (data.cache_profile != null && !CACHE_PROFILES.contains(data.cache_profile.toLowerCase(Locale.ROOT))) {
+            problems.add("cache_profile deve ser um de " + CACHE_PROFILES);
+        }
+        if (data.allowed_domains != null && data.allowed_domains.contains(null)
+                || data.blocked_domains != null && data.blocked_domains.contains(null)) {
+            problems.add("allowed_domains e blocked_domains devem ser listas de domínios");
+        }
+        if (data.metrics_port > 65_535) {
+            problems.add("metrics_port deve ser no máximo 65535");
+        }
+        if (data.panel_port > 65_535) {
+            problems.add("panel_port deve ser no máximo 65535");
+        }
+        if (data.shard_count < -1) {
+            problems.add("shard_count deve ser -1 (recomendado), 0 (sem sharding) ou positivo");
+        }
+        if (data.shard_first < 0 || data.shard_last < -1 || data.shard_last >= 0 && data.shard_last < data.shard_first) {
+            problems.add("shard_first e shard_last devem formar um intervalo válido (shard_last -1 vai até o último shard)");
+        } else if (data.shard_count > 0 && (data.shard_first >= data.shard_count || data.shard_last >= data.shard_count)) {
+            problems.add("shard_first e shard_last devem ser menores que shard_count");
+        } else if (data.shard_count == -1 && (data.shard_first != 0 || data.shard_last != -1)) {
+            // Processos que dividem os shards precisam concordar no total; o recomendado pode mudar entre eles
+            problems.add("dividir shards entre processos (shard_first/shard_last) exige shard_count fixo");
+        }
+        if (!problems.isEmpty()) {
+            throw new IllegalArgumentException(String.join("; ", problems));
+        }
+    }
+
+    // Valores ausentes ou zerados voltam ao padrão (nos campos em que negativo desativa, só o zero volta)
+    private static void applyDefaults(ConfigData data) {
+        if (data.settings_cache_size <= 0) data.settings_cache_size = DEFAULTS.settings_cache_size;
+        if (data.invite_refresh_minutes <= 0) data.invite_refresh_minutes = DEFAULTS.invite_refresh_minutes;
+        if (data.violation_queue_capacity <= 0) data.violation_queue_capacity = DEFAULTS.violation_queue_capacity;
+        if (data.violation_batch_size <= 0) data.violation_batch_size = DEFAULTS.violation_batch_size;
+        if (data.violation_flush_interval_ms <= 0) data.violation_flush_interval_ms = DEFAULTS.violation_flush_interval_ms;
+        if (data.violation_overflow_policy == null) data.violation_overflow_policy = DEFAULTS.violation_overflow_policy;
+        if (data.moderation_threads <= 0) data.moderation_threads = DEFAULTS.moderation_threads;
+        if (data.moderation_queue_capacity <= 0) data.moderation_queue_capacity = DEFAULTS.moderation_queue_capacity;
+        if (data.moderation_submit_timeout_ms <= 0) data.moderation_submit_timeout_ms = DEFAULTS.moderation_submit_timeout_ms;
+        if (data.counter_flush_seconds <= 0) data.counter_flush_seconds = DEFAULTS.counter_flush_seconds;
+        if (data.persistence_profile == null) data.persistence_profile = DEFAULTS.persistence_profile;
+        if (data.metrics_port == 0) data.metrics_port = DEFAULTS.metrics_port;
+        if (data.metrics_bind_address == null) data.metrics_bind_address = DEFAULTS.metrics_bind_address;
+        if (data.private_channel_cache_size <= 0) data.private_channel_cache_size = DEFAULTS.private_channel_cache_size;
+        if (data.warning_coalesce_window_ms == 0) data.warning_coalesce_window_ms = DEFAULTS.warning_coalesce_window_ms;
+        if (data.flood_table_capacity <= 0) data.flood_table_capacity = DEFAULTS.flood_table_capacity;
+        if (data.bulk_delete_window_ms == 0) data.bulk_delete_window_ms = DEFAULTS.bulk_delete_window_ms;
+        if (data.allowed_domains == null) data.allowed_domains = DEFAULTS.allowed_domains;
+        if (data.blocked_domains == null) data.blocked_domains = DEFAULTS.blocked_domains;
+        if (data.blocked_domains_file == null) data.blocked_domains_file = DEFAULTS.blocked_domains_file;
+        if (data.panel_port == 0) data.panel_port = DEFAULTS.panel_port;
+        if (data.panel_bind_address == null) data.panel_bind_address = DEFAULTS.panel_bind_address;
+        if (data.panel_threads <= 0) data.panel_threads = DEFAULTS.panel_threads;
+        if (data.panel_token == null) data.panel_token = DEFAULTS.panel_token;
+        if (data.retention_days == 0) data.retention_days = DEFAULTS.retention_days;
+        if (data.retention_interval_minutes <= 0) data.retention_interval_minutes = DEFAULTS.retention_interval_minutes;
+        if (data.retention_batch_size <= 0) data.retention_batch_size = DEFAULTS.retention_batch_size;
+        if (data.archive_directory == null) data.archive_directory = DEFAULTS.archive_directory;
+        if (data.shard_moderation_threads <= 0) data.shard_moderation_threads = DEFAULTS.shard_moderation_threads;
+        if (data.cache_profile == null) data.cache_profile = DEFAULTS.cache_profile;
+    }
+
+    private static void publish(Snapshot snapshot) {
+        logMatcher(SNAPSHOT.getAndSet(snapshot), snapshot);
+    }
+
+    private static void logMatcher(Snapshot previous, Snapshot next) {
+        if (previous == null || previous.profanityMatcher != next.profanityMatcher) {
+            logger.info("Matcher de palavras ofensivas compilado com {} termos.", next.profanityMatcher.size());
+        }
+    }
+
+    // Copia, altera, valida e publica sob a trava: nenhuma outra publicação se intercala, e o matcher é compilado uma vez
+    private static void update(Consumer<ConfigData> change) {
+        synchronized (PUBLISH_LOCK) {
+            Snapshot current = SNAPSHOT.get();
+            ConfigData copy = GSON.fromJson(current.source, ConfigData.class);
+            change.accept(copy);
+            try {
+                validate(copy);
+            } catch (IllegalArgumentException e) {
+                logger.warn("Alteração de configuração rejeitada: {}", e.getMessage());
+                return;
+            }
+            publish(new Snapshot(copy, current));
+        }
+    }
+
+    private static ConfigData data() {
+        return SNAPSHOT.get().data;
+    }
+
     public static void saveConfig() {
-        Gson gson = new GsonBuilder().setPrettyPrinting().create();
-        try (FileWriter writer = new FileWriter(CONFIG_FILE_PATH)) {
-            gson.toJson(configData, writer);
+        try (FileWriter writer = new FileWriter(CONFIG_FILE_PATH, StandardCharsets.UTF_8)) {
+            writer.write(SNAPSHOT.get().source); // O mesmo texto do snapshot: o watcher reconhece o arquivo como sem mudança
             logger.info("Configuração salva em '{}'.", CONFIG_FILE_PATH);
         } catch (IOException e) {
             logger.error("Erro ao salvar configuração em '{}'. Erro: {}", CONFIG_FILE_PATH, e.getMessage());
@@ -88,76 +373,211 @@ public class BotConfig {
 
     // Métodos Getters
     public static List<String> getProfaneWords() {
-        return configData.profane_words;
+        return SNAPSHOT.get().profaneWords;
+    }
+
+    public static ProfanityMatcher getProfanityMatcher() {
+        return SNAPSHOT.get().profanityMatcher;
     }
 
     public static boolean isBlockLinks() {
-        return configData.block_links;
+        return data().block_links;
     }
 
     public static boolean isBlockInvites() { // Getter para block_invites
-        return configData.block_invites;
+        return data().block_invites;
     }
 
     public static String getWarningType() {
-        return configData.warning_type;
+        return data().warning_type;
     }
 
     public static boolean isAdminOnlyCommands() {
-        return configData.admin_only_commands;
+        return data().admin_only_commands;
     }
 
     public static boolean isAutoDeleteWarnings() {
-        return configData.auto_delete_warnings;
+        return data().auto_delete_warnings;
     }
 
     public static int getWarningDeleteDelay() {
-        return configData.warning_delete_delay;
+        return data().warning_delete_delay;
     }
 
     public static boolean isLogViolations() { // Getter para log_violations
-        return configData.log_violations;
+        return data().log_violations;
+    }
+
+    public static int getSettingsCacheSize() {
+        return data().settings_cache_size;
+    }
+
+    public static int getInviteRefreshMinutes() {
+        return data().invite_refresh_minutes;
+    }
+
+    public static int getViolationQueueCapacity() {
+        return data().violation_queue_capacity;
+    }
+
+    public static int getViolationBatchSize() {
+        return data().violation_batch_size;
+    }
+
+    public static int getViolationFlushIntervalMillis() {
+        return data().violation_flush_interval_ms;
+    }
+
+    public static String getViolationOverflowPolicy() {
+        return data().violation_overflow_policy;
+    }
+
+    public static int getModerationThreads() {
+        return data().moderation_threads;
+    }
+
+    public static int getModerationQueueCapacity() {
+        return data().moderation_queue_capacity;
+    }
+
+    public static int getModerationSubmitTimeoutMillis() {
+        return data().moderation_submit_timeout_ms;
+    }
+
+    public static int getCounterFlushSeconds() {
+        return data().counter_flush_seconds;
+    }
+
+    public static String getPersistenceProfile() {
+        return data().persistence_profile;
+    }
+
+    public static int getMetricsPort() {
+        return data().metrics_port;
+    }
+
+    public static String getMetricsBindAddress() {
+        return data().metrics_bind_address;
+    }
+
+    public static int getPrivateChannelCacheSize() {
+        return data().private_channel_cache_size;
+    }
+
+    public static int getWarningCoalesceWindowMillis() {
+        return data().warning_coalesce_window_ms;
+    }
+
+    public static int getFloodTableCapacity() {
+        return data().flood_table_capacity;
+    }
+
+    public static int getBulkDeleteWindowMillis() {
+        return data().bulk_delete_window_ms;
+    }
+
+    public static List<String> getAllowedDomains() {
+        return data().allowed_domains;
     }
 
+    public static List<String> getBlockedDomains() {
+        return data().blocked_domains;
+    }
+
+    public static String getBlockedDomainsFile() {
+        return data().blocked_domains_file;
+    }
+
+    public static int getPanelPort() {
+        return data().panel_port;
+    }
+
+    public static String getPanelBindAddress() {
+        return data().panel_bind_address;
+    }
+
+    public static int getPanelThreads() {
+        return data().panel_threads;
+    }
+
+    public static String getPanelToken() {
+        return data().panel_token;
+    }
+
+    public static int getRetentionDays() {
+        return data().retention_days;
+    }
+
+    public static int getRetentionIntervalMinutes() {
+        return data().retention_interval_minutes;
+    }
+
+    public static int getRetentionBatchSize() {
+        return data().retention_batch_size;
+    }
+
+    public static String getArchiveDirectory() {
+        return data().archive_directory;
+    }
+
+    public static int getShardCount() {
+        return data().shard_count;
+    }
+
+    public static int getShardFirst() {
+        return data().shard_first;
+    }
+
+    public static int getShardLast() {
+        return data().shard_last;
+    }
+
+    public static int getShardModerationThreads() {
+        return data().shard_moderation_threads;
+    }
+
+    public static String getCacheProfile() {
+        return data().cache_profile;
+    }
 
-    // Métodos Setters (para atualização via painel web, por exemplo)
+    // Métodos Setters (para atualização via painel web, por exemplo); cada um publica um novo snapshot
     public static void updateProfaneWords(List<String> words) {
-        configData.profane_words = words;
+        update(data -> data.profane_words = new ArrayList<>(words));
     }
 
     public static void setBlockLinks(boolean blockLinks) {
-        configData.block_links = blockLinks;
+        update(data -> data.block_links = blockLinks);
     }
 
     public static void setBlockInvites(boolean blockInvites) { // Setter para block_invites
-        configData.block_invites = blockInvites;
+        update(data -> data.block_invites = blockInvites);
     }
 
     public static void setWarningType(String warningType) {
-        if (Arrays.asList("dm", "public", "both").contains(warningType)) {
-            configData.warning_type = warningType;
+        if (WARNING_TYPES.contains(warningType)) {
+            update(data -> data.warning_type = warningType);
         } else {
             logger.warn("Tipo de aviso inválido: {}. Mantendo o tipo atual.", warningType);
         }
     }
 
     public static void setAdminOnlyCommands(boolean adminOnlyCommands) {
-        configData.admin_only_commands = adminOnlyCommands;
+        update(data -> data.admin_only_commands = adminOnlyCommands);
     }
 
     public static void setAutoDeleteWarnings(boolean autoDeleteWarnings) {
-        configData.auto_delete_warnings = autoDeleteWarnings;
+        update(data -> data.auto_delete_warnings = autoDeleteWarnings);
     }
 
     public static void setWarningDeleteDelay(int warningDeleteDelay) {
         if (warningDeleteDelay > 0) {
-            configData.warning_delete_delay = warningDeleteDelay;
+            update(data -> data.warning_delete_delay = warningDeleteDelay);
         } else {
             logger.warn("Atraso para deletar aviso inválido: {}. Deve ser maior que 0. Mantendo o valor atual.", warningDeleteDelay);
         }
     }
 
     public static void setLogViolations(boolean logViolations) { // Setter para log_violations
-        configData.log_violations = logViolations;
+        update(data -> data.log_violations = logViolations);
     }
 }
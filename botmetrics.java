@@ -0,0 +1,102 @@
+package com.glsecurity.bot.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Métricas do caminho quente do bot, registradas uma única vez no registro global.
+ * Os componentes gravam diretamente nos campos estáticos (sem alocação); o {@link MetricsServer} exporta tudo.
+ */
+public final class BotMetrics {
+
+    public static final MetricsRegistry REGISTRY = new MetricsRegistry();
+
+    public static final Counter MESSAGES_SEEN = REGISTRY.counter("glsecurity_messages_total",
+            "Mensagens de servidores recebidas pelo bot (exceto de outros bots).");
+
+    public static final LatencyHistogram SCAN_LATENCY = REGISTRY.histogram("glsecurity_scan_seconds",
+            "Tempo de avaliação do conteúdo de uma mensagem (palavras, links e convites).");
+
+    public static final LatencyHistogram SETTINGS_LOOKUP_LATENCY = REGISTRY.histogram("glsecurity_settings_lookup_seconds",
+            "Tempo de obtenção das configurações de um servidor (cache ou banco).");
+
+    public static final LatencyHistogram DB_WRITE_VIOLATIONS = REGISTRY.histogram("glsecurity_db_write_seconds",
+            "Tempo de uma transação de escrita no banco, incluindo a espera pela trava de escrita.", "operation", "violations_batch");
+
+    public static final LatencyHistogram DB_WRITE_SETTINGS = REGISTRY.histogram("glsecurity_db_write_seconds",
+            "Tempo de uma transação de escrita no banco, incluindo a espera pela trava de escrita.", "operation", "server_settings");
+
+    public static final LatencyHistogram DB_WRITE_ARCHIVE = REGISTRY.histogram("glsecurity_db_write_seconds",
+            "Tempo de uma transação de escrita no banco, incluindo a espera pela trava de escrita.", "operation", "archive_delete");
+
+    public static final Counter VIOLATIONS_ARCHIVED = REGISTRY.counter("glsecurity_violations_archived_total",
+            "Violações movidas para o arquivo morto pela retenção.");
+
+    private static final String[] VIOLATION_TYPES = {"PROFANE_WORD", "LINK", "INVITE", "FLOOD", "RAID"};
+    private static final String[] REST_ACTIONS = {"delete_message", "bulk_delete", "send_dm", "send_public_warning"};
+
+    private static final Map<String, Counter> VIOLATIONS = new ConcurrentHashMap<>();
+    private static final Map<String, LatencyHistogram> REST_LATENCY = new ConcurrentHashMap<>();
+    private static final Map<String, Counter> REST_FAILURES = new ConcurrentHashMap<>();
+
+    static {
+        for (String type : VIOLATION_TYPES) {
+            violationCounter(type);
+        }
+        for (String action : REST_ACTIONS) {
+            restLatency(action);
+            restFailures(action);
+        }
+        restFailures("delete_warning");
+    }
+
+    private BotMetrics() {
+    }
+
+    /**
+     * Conta uma violação detectada. Os tipos conhecidos já estão registrados, então a consulta não aloca.
+     */
+    public static void violationDetected(String violationType) {
+        violationCounter(violationType).increment();
+    }
+
+    /**
+     * Registra a conclusão (com sucesso) de uma ação REST iniciada em {@code startNanos}.
+     */
+    public static void restCompleted(String action, long startNanos) {
+        restLatency(action).recordSince(startNanos);
+    }
+
+    /**
+     * Registra uma ação REST que falhou; o tempo até a falha também entra no histograma da ação.
+     */
+    public static void restFailed(String action, long startNanos) {
+        restLatency(action).recordSince(startNanos);
+        restFailures(action).increment();
+    }
+
+    /**
+     * Conta uma ação REST que falhou, sem registrar tempo (ações agendadas com atraso).
+     */
+    public static void restFailed(String action) {
+        restFailures(action).increment();
+    }
+
+    private static Counter violationCounter(String type) {
+        Counter counter = VIOLATIONS.get(type);
+        return counter != null ? counter : VIOLATIONS.computeIfAbsent(type, t -> REGISTRY.counter("glsecurity_violations_total",
+                "Violações detectadas, por tipo.", "type", t));
+    }
+
+    private static LatencyHistogram restLatency(String action) {
+        LatencyHistogram histogram = REST_LATENCY.get(action);
+        return histogram != null ? histogram : REST_LATENCY.computeIfAbsent(action, a -> REGISTRY.histogram("glsecurity_rest_seconds",
+                "Tempo até a conclusão de uma ação REST do Discord.", "action", a));
+    }
+
+    private static Counter restFailures(String action) {
+        Counter counter = REST_FAILURES.get(action);
+        return counter != null ? counter : REST_FAILURES.computeIfAbsent(action, a -> REGISTRY.counter("glsecurity_rest_failures_total",
+                "Ações REST do Discord que falharam.", "action", a));
+    }
+}
@@ -0,0 +1,90 @@
+package com.glsecurity.bot.config;
+
+import net.dv8tion.jda.api.JDABuilder;
+import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.sharding.DefaultShardManagerBuilder;
+import net.dv8tion.jda.api.utils.ChunkingFilter;
+import net.dv8tion.jda.api.utils.MemberCachePolicy;
+import net.dv8tion.jda.api.utils.cache.CacheFlag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumSet;
+import java.util.Locale;
+
+/**
+ * Perfis de cache do gateway ({@code cache_profile}).
+ *
+ * <p>A moderação só precisa do conteúdo das mensagens, dos cargos de cada servidor (para saber se o autor tem
+ * MANAGE_SERVER) e dos convites. O perfil LEAN assina só esses eventos e não guarda membros, emojis, figurinhas,
+ * estados de voz, eventos agendados nem permissões por canal; com milhares de servidores esse cache é a maior
+ * parte do heap. Cargos e canais o JDA mantém sempre, e o próprio bot continua em cache.</p>
+ *
+ * <p>DEFAULT é o padrão e mantém os intents e o cache de antes. LEAN precisa ser escolhido na configuração,
+ * porque deixa de pedir o intent GUILD_MEMBERS e muda o que o gateway envia ao bot.</p>
+ */
+public enum CacheProfile {
+    DEFAULT, // createDefault do JDA: intents padrão, cache de membros de voz e do dono, todas as flags sem presença
+    LEAN;    // createLight do JDA: só os intents usados, nenhum membro em cache, nenhuma flag
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheProfile.class);
+
+    /**
+     * @return Os intents pedidos além dos padrão do perfil.
+     */
+    public EnumSet<GatewayIntent> getIntents() {
+        EnumSet<GatewayIntent> intents = EnumSet.of(
+                GatewayIntent.GUILD_MESSAGES,  // Para receber eventos de mensagem em guilds
+                GatewayIntent.MESSAGE_CONTENT, // **Essencial** para acessar o conteúdo das mensagens
+                GatewayIntent.GUILD_INVITES    // Para manter o cache de convites de cada servidor
+        );
+        if (this == DEFAULT) {
+            intents.add(GatewayIntent.GUILD_MEMBERS); // Eventos de membros; o LEAN lê o autor do próprio evento de mensagem
+        }
+        return intents;
+    }
+
+    /**
+     * @return As flags de cache que ficam ligadas no perfil.
+     */
+    public EnumSet<CacheFlag> getCacheFlags() {
+        return this == DEFAULT ? EnumSet.complementOf(CacheFlag.getPrivileged()) : EnumSet.noneOf(CacheFlag.class);
+    }
+
+    public MemberCachePolicy getMemberCachePolicy() {
+        return this == DEFAULT ? MemberCachePolicy.DEFAULT : MemberCachePolicy.NONE;
+    }
+
+    // As flags, a política de membros e o chunking são aplicados explicitamente, e não herdados dos padrões do
+    // createDefault/createLight, para que getCacheFlags e getMemberCachePolicy descrevam a configuração real
+    public JDABuilder createBuilder(String token) {
+        JDABuilder builder = this == DEFAULT
+                ? JDABuilder.createDefault(token).enableIntents(getIntents())
+                : JDABuilder.createLight(token, getIntents());
+        return builder
+                .disableCache(EnumSet.complementOf(getCacheFlags()))
+                .enableCache(getCacheFlags())
+                .setMemberCachePolicy(getMemberCachePolicy())
+                .setChunkingFilter(ChunkingFilter.NONE);
+    }
+
+    public DefaultShardManagerBuilder createShardManagerBuilder(String token) {
+        DefaultShardManagerBuilder builder = this == DEFAULT
+                ? DefaultShardManagerBuilder.createDefault(token).enableIntents(getIntents())
+                : DefaultShardManagerBuilder.createLight(token, getIntents());
+        return builder
+                .disableCache(EnumSet.complementOf(getCacheFlags()))
+                .enableCache(getCacheFlags())
+                .setMemberCachePolicy(getMemberCachePolicy())
+                .setChunkingFilter(ChunkingFilter.NONE);
+    }
+
+    public static CacheProfile fromConfig(String value) {
+        try {
+            return CacheProfile.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (Exception e) {
+            logger.warn("Perfil de cache inválido: {}. Usando DEFAULT.", value);
+            return DEFAULT;
+        }
+    }
+}
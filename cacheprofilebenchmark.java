@@ -0,0 +1,294 @@
+package com.glsecurity.bot.benchmark;
+
+import com.glsecurity.bot.config.CacheProfile;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import net.dv8tion.jda.api.JDABuilder;
+import net.dv8tion.jda.api.utils.cache.CacheFlag;
+import net.dv8tion.jda.api.utils.data.DataArray;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import net.dv8tion.jda.internal.JDAImpl;
+import net.dv8tion.jda.internal.entities.EntityBuilder;
+import net.dv8tion.jda.internal.entities.GuildImpl;
+import net.dv8tion.jda.internal.utils.config.AuthorizationConfig;
+import net.dv8tion.jda.internal.utils.config.MetaConfig;
+import net.dv8tion.jda.internal.utils.config.ThreadingConfig;
+import net.dv8tion.jda.internal.utils.config.flags.ConfigFlag;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compara o heap retido pelo cache do JDA nos perfis {@link CacheProfile} com um conjunto sintético de servidores.
+ *
+ * <p>Não conecta ao Discord: monta os payloads de GUILD_CREATE e de MESSAGE_CREATE que o gateway enviaria e os
+ * passa pelo EntityBuilder interno do JDA, configurado com as flags de cache e a política de membros de cada
+ * perfil. Cada servidor tem cargos, categorias, canais de texto e voz com permissões por cargo e por membro,
+ * emojis, figurinhas, membros em canais de voz, eventos agendados e autores de mensagens recentes.</p>
+ * Execute com: java -cp discord-bot-jar-with-dependencies.jar com.glsecurity.bot.benchmark.CacheProfileBenchmark [servidores] [membros por servidor]
+ */
+public class CacheProfileBenchmark {
+
+    private static final long SELF_ID = 1L;
+    private static final int ROLES = 25;
+    private static final int CATEGORIES = 5;
+    private static final int TEXT_CHANNELS = 40;
+    private static final int VOICE_CHANNELS = 15;
+    private static final int EMOJIS = 50;
+    private static final int STICKERS = 5;
+    private static final int IN_VOICE = 8;
+    private static final int SCHEDULED_EVENTS = 2;
+    private static final int MESSAGE_AUTHORS = 200;
+
+    public static void main(String[] args) throws Exception {
+        int guilds = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int members = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+        List<String> report = new ArrayList<>();
+        for (CacheProfile profile : CacheProfile.values()) {
+            report.add(run(profile, guilds, members));
+        }
+
+        System.out.printf(Locale.ROOT, "%n%-8s %10s %12s %14s %10s %10s%n",
+                "perfil", "servidores", "heap (MB)", "bytes/servidor", "membros", "usuários");
+        report.forEach(System.out::println);
+    }
+
+    private static String run(CacheProfile profile, int guilds, int members) throws ReflectiveOperationException {
+        long before = usedHeap();
+        JDAImpl jda = createJda(profile);
+        EntityBuilder builder = jda.getEntityBuilder();
+        for (int g = 0; g < guilds; g++) {
+            long guildId = 100_000_000_000L + g * 1_000_000L;
+            TLongObjectMap<DataObject> guildMembers = new TLongObjectHashMap<>();
+            for (int m = 0; m <= IN_VOICE + members; m++) {
+                long userId = m == 0 ? SELF_ID : guildId + 500_000 + m; // m == 1 é o dono
+                guildMembers.put(userId, member(userId, guildId, m));
+            }
+            GuildImpl guild = builder.createGuild(guildId, guild(guildId, members), guildMembers, members + IN_VOICE + 1);
+            // Autores de mensagens: o gateway manda o membro junto com cada MESSAGE_CREATE
+            for (int a = 0; a < MESSAGE_AUTHORS; a++) {
+                long userId = guildId + 700_000 + a;
+                builder.createMember(guild, member(userId, guildId, a + 2));
+            }
+        }
+        long retained = usedHeap() - before;
+        String line = String.format(Locale.ROOT, "%-8s %10d %12.1f %14d %10d %10d", profile, guilds,
+                retained / 1048576.0, retained / guilds, jda.getGuildCache().stream().mapToLong(g -> g.getMemberCache().size()).sum(),
+                jda.getUserCache().size());
+        jda.getGuildsView().clear();
+        jda.getUsersView().clear();
+        return line;
+    }
+
+    // JDA desconectado com a configuração de cache lida do próprio builder do perfil usado em produção
+    private static JDAImpl createJda(CacheProfile profile) throws ReflectiveOperationException {
+        JDABuilder builder = profile.createBuilder("benchmark");
+        EnumSet<CacheFlag> cacheFlags = builderField(builder, "cacheFlags");
+        MetaConfig meta = new MetaConfig(2048, new ConcurrentHashMap<>(), EnumSet.copyOf(cacheFlags), ConfigFlag.getDefault());
+        JDAImpl jda = new JDAImpl(new AuthorizationConfig("benchmark"), null, new ThreadingConfig(), meta, null);
+        jda.setMemberCachePolicy(builderField(builder, "memberCachePolicy"));
+        jda.setChunkingFilter(builderField(builder, "chunkingFilter"));
+        jda.setSelfUser(jda.getEntityBuilder().createSelfUser(user(SELF_ID).put("verified", true).put("mfa_enabled", false)));
+        return jda;
+    }
+
+    // Os campos protegidos do JDABuilder guardam o que build() repassaria ao JDA
+    @SuppressWarnings("unchecked")
+    private static <T> T builderField(JDABuilder builder, String name) throws ReflectiveOperationException {
+        Field field = JDABuilder.class.getDeclaredField(name);
+        field.setAccessible(true);
+        return (T) field.get(builder);
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static DataObject guild(long guildId, int members) {
+        DataArray roles = DataArray.empty();
+        for (int r = 0; r < ROLES; r++) {
+            long roleId = r == 0 ? guildId : guildId + 1_000 + r; // O @everyone tem o ID do servidor
+            long permissions = r == 0 ? 0x6_4000_0C40L : r == ROLES - 1 ? 0x20L : 0x6_4000_0C40L | (1L << r);
+            roles.add(DataObject.empty()
+                    .put("id", Long.toString(roleId))
+                    .put("name", r == 0 ? "@everyone" : "Cargo " + r)
+                    .put("permissions", Long.toString(permissions))
+                    .put("position", r)
+                    .put("color", r * 4_000)
+                    .put("hoist", r % 5 == 0)
+                    .put("managed", false)
+                    .put("mentionable", true)
+                    .put("icon", null)
+                    .put("unicode_emoji", null)
+                    .put("flags", 0)
+                    .put("tags", r == ROLES - 1 ? DataObject.empty().put("bot_id", Long.toString(SELF_ID)) : DataObject.empty()));
+        }
+
+        DataArray channels = DataArray.empty();
+        for (int c = 0; c < CATEGORIES + TEXT_CHANNELS + VOICE_CHANNELS; c++) {
+            long channelId = guildId + 10_000 + c;
+            int type = c < CATEGORIES ? 4 : c < CATEGORIES + TEXT_CHANNELS ? 0 : 2;
+            DataObject channel = DataObject.empty()
+                    .put("id", Long.toString(channelId))
+                    .put("type", type)
+                    .put("name", "canal-" + c)
+                    .put("position", c)
+                    .put("flags", 0)
+                    .put("nsfw", false)
+                    .put("permission_overwrites", overrides(guildId));
+            if (type != 4) {
+                channel.put("parent_id", Long.toString(guildId + 10_000 + c % CATEGORIES));
+            }
+            if (type == 0) {
+                channel.put("topic", "Tópico do canal " + c).put("rate_limit_per_user", 0).put("last_message_id", null);
+            } else if (type == 2) {
+                channel.put("bitrate", 64_000).put("user_limit", 0).put("rtc_region", null);
+            }
+            channels.add(channel);
+        }
+
+        DataArray emojis = DataArray.empty();
+        for (int e = 0; e < EMOJIS; e++) {
+            emojis.add(DataObject.empty()
+                    .put("id", Long.toString(guildId + 20_000 + e))
+                    .put("name", "emoji_" + e)
+                    .put("roles", DataArray.empty())
+                    .put("require_colons", true)
+                    .put("managed", false)
+                    .put("animated", e % 10 == 0)
+                    .put("available", true));
+        }
+
+        DataArray stickers = DataArray.empty();
+        for (int s = 0; s < STICKERS; s++) {
+            stickers.add(DataObject.empty()
+                    .put("id", Long.toString(guildId + 30_000 + s))
+                    .put("name", "figurinha " + s)
+                    .put("description", "Figurinha do servidor")
+                    .put("tags", "servidor")
+                    .put("type", 2)
+                    .put("format_type", 1)
+                    .put("available", true)
+                    .put("guild_id", Long.toString(guildId)));
+        }
+
+        DataArray voiceStates = DataArray.empty();
+        for (int v = 0; v < IN_VOICE; v++) {
+            voiceStates.add(DataObject.empty()
+                    .put("user_id", Long.toString(guildId + 500_000 + 1 + members + v)) // Os últimos membros do mapa
+                    .put("channel_id", Long.toString(guildId + 10_000 + CATEGORIES + TEXT_CHANNELS + v % VOICE_CHANNELS))
+                    .put("session_id", "sessao-" + v)
+                    .put("deaf", false)
+                    .put("mute", false)
+                    .put("self_deaf", false)
+                    .put("self_mute", v % 2 == 0)
+                    .put("self_video", false)
+                    .put("self_stream", false)
+                    .put("suppress", false)
+                    .put("request_to_speak_timestamp", null));
+        }
+
+        DataArray events = DataArray.empty();
+        for (int e = 0; e < SCHEDULED_EVENTS; e++) {
+            events.add(DataObject.empty()
+                    .put("id", Long.toString(guildId + 40_000 + e))
+                    .put("guild_id", Long.toString(guildId))
+                    .put("channel_id", Long.toString(guildId + 10_000 + CATEGORIES + TEXT_CHANNELS))
+                    .put("creator_id", Long.toString(guildId + 500_001))
+                    .put("name", "Evento " + e)
+                    .put("description", "Evento da comunidade")
+                    .put("scheduled_start_time", "2030-01-01T20:00:00.000000+00:00")
+                    .put("scheduled_end_time", null)
+                    .put("privacy_level", 2)
+                    .put("status", 1)
+                    .put("entity_type", 2)
+                    .put("entity_id", null)
+                    .put("entity_metadata", null)
+                    .put("user_count", 10)
+                    .put("image", null));
+        }
+
+        return DataObject.empty()
+                .put("id", Long.toString(guildId))
+                .put("name", "Servidor " + guildId)
+                .put("owner_id", Long.toString(guildId + 500_001))
+                .put("member_count", members + IN_VOICE + 1)
+                .put("roles", roles)
+                .put("channels", channels)
+                .put("threads", DataArray.empty())
+                .put("emojis", emojis)
+                .put("stickers", stickers)
+                .put("voice_states", voiceStates)
+                .put("guild_scheduled_events", events)
+                .put("presences", DataArray.empty())
+                .put("members", DataArray.empty()) // Membros vão no mapa passado ao EntityBuilder
+                .put("features", DataArray.fromCollection(List.of("COMMUNITY", "NEWS")))
+                .put("afk_timeout", 300)
+                .put("verification_level", 1)
+                .put("default_message_notifications", 1)
+                .put("mfa_level", 0)
+                .put("explicit_content_filter", 2)
+                .put("nsfw_level", 0)
+                .put("premium_tier", 1)
+                .put("premium_subscription_count", 3)
+                .put("preferred_locale", "pt-BR")
+                .put("max_members", 500_000)
+                .put("max_presences", 0)
+                .put("description", "Servidor sintético do benchmark");
+    }
+
+    // Três cargos e dois membros com permissões próprias por canal
+    private static DataArray overrides(long guildId) {
+        DataArray overrides = DataArray.empty();
+        for (int o = 0; o < 5; o++) {
+            boolean member = o >= 3;
+            overrides.add(DataObject.empty()
+                    .put("id", Long.toString(member ? guildId + 500_002 + o : guildId + 1_000 + o + 1))
+                    .put("type", member ? 1 : 0)
+                    .put("allow", "1024")
+                    .put("deny", "2048"));
+        }
+        return overrides;
+    }
+
+    private static DataObject member(long userId, long guildId, int index) {
+        DataArray roles = DataArray.empty();
+        for (int r = 1; r <= 1 + index % 3; r++) {
+            roles.add(Long.toString(guildId + 1_000 + (index + r) % (ROLES - 1) + 1));
+        }
+        return DataObject.empty()
+                .put("user", user(userId))
+                .put("roles", roles)
+                .put("nick", index % 4 == 0 ? "Apelido " + index : null)
+                .put("avatar", null)
+                .put("joined_at", "2024-01-01T00:00:00.000000+00:00")
+                .put("premium_since", null)
+                .put("deaf", false)
+                .put("mute", false)
+                .put("pending", false)
+                .put("flags", 0)
+                .put("communication_disabled_until", null);
+    }
+
+    private static DataObject user(long userId) {
+        return DataObject.empty()
+                .put("id", Long.toString(userId))
+                .put("username", "usuario" + userId)
+                .put("global_name", "Usuário " + userId)
+                .put("discriminator", "0")
+                .put("avatar", "a1b2c3d4e5f6a1b2c3d4e5f6a1b2c3d4")
+                .put("bot", userId == SELF_ID)
+                .put("public_flags", 0);
+    }
+}
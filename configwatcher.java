@@ -0,0 +1,92 @@
+package com.glsecurity.bot.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Observa o {@code bot_config.json} com um {@link WatchService} e chama {@link BotConfig#reload()} quando ele muda.
+ *
+ * <p>Editores costumam gravar o arquivo em várias etapas (truncar, escrever, renomear), gerando uma rajada de
+ * eventos; a thread espera {@code DEBOUNCE_MILLIS} sem novos eventos antes de recarregar. A leitura, a validação
+ * e a compilação do matcher acontecem nesta thread, fora do caminho das mensagens.</p>
+ */
+public class ConfigWatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConfigWatcher.class);
+    private static final long DEBOUNCE_MILLIS = 250;
+
+    private final Path file;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    /**
+     * @param file O arquivo de configuração a observar (o diretório dele é registrado no WatchService).
+     */
+    public ConfigWatcher(Path file) throws IOException {
+        this.file = file.toAbsolutePath();
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.file.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        this.thread = new Thread(this::run, "config-watcher");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+        logger.info("Observando alterações em '{}'.", file);
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = drain(key);
+                // Junta a rajada de eventos de uma mesma gravação
+                while ((key = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= drain(key);
+                }
+                if (changed) {
+                    BotConfig.reload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Encerrado pelo stop()
+        } catch (Exception e) {
+            logger.error("Observador de configuração encerrado por erro: {}", e.getMessage(), e);
+        }
+    }
+
+    // Consome os eventos da chave; retorna true se algum deles for do arquivo observado
+    private boolean drain(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changed = true; // Eventos perdidos: recarrega por garantia (o reload ignora conteúdo igual)
+            } else if (file.getFileName().equals(event.context())) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    public void stop() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.warn("Erro ao fechar o observador de configuração: {}", e.getMessage());
+        }
+        thread.interrupt();
+    }
+}
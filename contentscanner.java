@@ -0,0 +1,306 @@
+package com.glsecurity.bot.filter;
+
+import java.util.Arrays;
+
+/**
+ * Estágio único de análise de conteúdo: emite achados tipados (palavra ofensiva, link com o trecho do
+ * host, convite do Discord com o código) com suas posições no texto bruto.
+ *
+ * <p>Não usa expressões regulares, portanto não há retrocesso. As palavras são buscadas no texto
+ * normalizado pelo {@link TextNormalizer} (contra evasões como "p0rr4" ou "f.d.p"), e links e convites no
+ * texto bruto, onde pontuação e dígitos importam; cada caractere é lido uma vez por cada uma das duas
+ * passadas. O resultado e o buffer de normalização são reaproveitados por thread, de modo que uma mensagem
+ * limpa não aloca nada.</p>
+ */
+public final class ContentScanner {
+
+    private static final String[] URL_SCHEMES = {"http://", "https://"};
+
+    // Prefixos aceitos para convites (discord.gg, discord.com/invite, discordapp.com/invite...)
+    private static final String[] INVITE_PREFIXES = {
+            "discord.gg/", "discord.io/", "discord.me/", "discord.li/",
+            "discordapp.com/invite/", "discord.com/invite/"
+    };
+
+    public enum FindingType {
+        PROFANE_WORD, // detalhe = termo encontrado
+        LINK,         // detalhe = host da URL
+        INVITE        // detalhe = código do convite
+    }
+
+    private final ThreadLocal<ScanResult> results = ThreadLocal.withInitial(ScanResult::new);
+
+    /**
+     * Analisa o conteúdo bruto da mensagem.
+     * O resultado pertence à thread atual e só é válido até a próxima chamada de scan nessa thread.
+     * @param content O conteúdo bruto (sem conversão para minúsculas).
+     * @param profanity O matcher de palavras ofensivas, ou null para não verificar palavras.
+     * @param links Se links devem ser reconhecidos.
+     * @param invites Se convites do Discord devem ser reconhecidos.
+     * @return Os achados da mensagem.
+     */
+    public ScanResult scan(CharSequence content, ProfanityMatcher profanity, boolean links, boolean invites) {
+        ScanResult result = results.get();
+        result.reset(content);
+
+        if (profanity != null) {
+            scanWords(content, profanity, null, result);
+        }
+        return scanLinks(content, links, invites, result);
+    }
+
+    /**
+     * Analisa o conteúdo bruto da mensagem com o dicionário de um servidor (global, adições e isenções).
+     * O resultado pertence à thread atual e só é válido até a próxima chamada de scan nessa thread.
+     * @param content O conteúdo bruto (sem conversão para minúsculas).
+     * @param words O dicionário do servidor, ou null para não verificar palavras.
+     * @param links Se links devem ser reconhecidos.
+     * @param invites Se convites do Discord devem ser reconhecidos.
+     * @return Os achados da mensagem.
+     */
+    public ScanResult scan(CharSequence content, WordFilter words, boolean links, boolean invites) {
+        ScanResult result = results.get();
+        result.reset(content);
+
+        if (words != null) {
+            scanWords(content, words.global(), words, result);
+            if (words.custom() != null) {
+                scanWords(content, words.custom(), null, result);
+            }
+        }
+        return scanLinks(content, links, invites, result);
+    }
+
+    // Segunda passada, sobre o texto bruto: links e convites
+    private static ScanResult scanLinks(CharSequence content, boolean links, boolean invites, ScanResult result) {
+        if (!links && !invites) {
+            return result;
+        }
+
+        int length = content.length();
+        int urlResumeAt = 0;    // Evita reconhecer de novo uma URL já consumida
+        int inviteResumeAt = 0; // Idem para convites
+
+        for (int i = 0; i < length; i++) {
+            char c = content.charAt(i);
+
+            if (links && i >= urlResumeAt && (c == 'h' || c == 'H')) {
+                int end = scanUrl(content, i, result);
+                if (end > i) urlResumeAt = end;
+            }
+
+            if (invites && i >= inviteResumeAt && (c == 'd' || c == 'D')) {
+                int end = scanInvite(content, i, result);
+                if (end > i) inviteResumeAt = end;
+            }
+        }
+        return result;
+    }
+
+    // Busca as palavras no texto normalizado e registra as posições convertidas para o texto bruto;
+    // termos isentos pelo servidor (exemptions != null) são ignorados
+    private static void scanWords(CharSequence content, ProfanityMatcher profanity, WordFilter exemptions, ScanResult result) {
+        TextNormalizer.NormalizedText normalized = TextNormalizer.normalize(content);
+        int length = normalized.length();
+        int state = ProfanityMatcher.root();
+        for (int i = 0; i < length; i++) {
+            state = profanity.step(state, normalized.charAt(i));
+            for (int o = profanity.firstOutput(state); o != -1; o = profanity.nextOutput(o)) {
+                int start = i + 1 - profanity.termLength(o);
+                if (profanity.isValid(normalized, start, i + 1)
+                        && (exemptions == null || !exemptions.isExempt(profanity.termKey(o)))) {
+                    int originalStart = normalized.originalOffset(start);
+                    int originalEnd = normalized.originalOffset(i + 1);
+                    result.add(FindingType.PROFANE_WORD, originalStart, originalEnd, profanity.termOf(o), originalStart, originalEnd);
+                }
+            }
+        }
+    }
+
+    // Reconhece "http(s)://[usuário@]host[:porta][/caminho]" a partir de start; retorna o fim da URL ou start se não houver URL
+    private static int scanUrl(CharSequence content, int start, ScanResult result) {
+        int authorityStart = -1;
+        for (String scheme : URL_SCHEMES) {
+            if (regionMatchesIgnoreCase(content, start, scheme)) {
+                authorityStart = start + scheme.length();
+                break;
+            }
+        }
+        if (authorityStart < 0) return start;
+
+        int length = content.length();
+        int authorityEnd = authorityStart;
+        while (authorityEnd < length && !isAuthorityEnd(content.charAt(authorityEnd))) authorityEnd++;
+
+        // O host vem depois do último '@': "https://youtube.com@golpe.xyz" aponta para golpe.xyz
+        int hostStart = authorityStart;
+        for (int i = authorityEnd - 1; i >= authorityStart; i--) {
+            if (content.charAt(i) == '@') {
+                hostStart = i + 1;
+                break;
+            }
+        }
+        int hostEnd = hostStart;
+        while (hostEnd < authorityEnd && isHostChar(content.charAt(hostEnd))) hostEnd++;
+        if (!hasTopLevelDomain(content, hostStart, hostEnd)) return start;
+
+        int end = authorityEnd;
+        if (end < length && "/?#".indexOf(content.charAt(end)) >= 0) {
+            while (end < length && !Character.isWhitespace(content.charAt(end))) end++;
+        }
+        result.add(FindingType.LINK, start, end, null, hostStart, hostEnd);
+        return end;
+    }
+
+    // Reconhece "discord.gg/<código>" e variantes a partir de start; retorna o fim do convite ou start
+    private static int scanInvite(CharSequence content, int start, ScanResult result) {
+        for (String prefix : INVITE_PREFIXES) {
+            if (regionMatchesIgnoreCase(content, start, prefix)) {
+                int codeStart = start + prefix.length();
+                int codeEnd = codeStart;
+                while (codeEnd < content.length() && isAsciiLetterOrDigit(content.charAt(codeEnd))) codeEnd++;
+                if (codeEnd == codeStart) return start;
+                result.add(FindingType.INVITE, start, codeEnd, null, codeStart, codeEnd);
+                return codeEnd;
+            }
+        }
+        return start;
+    }
+
+    // O host precisa ter pelo menos um rótulo seguido de "." e duas letras
+    private static boolean hasTopLevelDomain(CharSequence content, int hostStart, int hostEnd) {
+        for (int i = hostStart + 1; i + 2 < hostEnd; i++) {
+            if (content.charAt(i) == '.' && isAsciiLetter(content.charAt(i + 1)) && isAsciiLetter(content.charAt(i + 2))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean regionMatchesIgnoreCase(CharSequence content, int offset, String lowerPrefix) {
+        if (offset + lowerPrefix.length() > content.length()) return false;
+        for (int i = 0; i < lowerPrefix.length(); i++) {
+            char c = content.charAt(offset + i);
+            if (c >= 'A' && c <= 'Z') c = (char) (c + ('a' - 'A'));
+            if (c != lowerPrefix.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    // Fim da autoridade (usuário, host e porta) de uma URL
+    private static boolean isAuthorityEnd(char c) {
+        return c == '/' || c == '?' || c == '#' || c == '<' || c == '>' || c == '"' || Character.isWhitespace(c);
+    }
+
+    private static boolean isHostChar(char c) {
+        return isAsciiLetterOrDigit(c) || c == '-' || c == '.';
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return isAsciiLetter(c) || (c >= '0' && c <= '9');
+    }
+
+    /**
+     * Achados de uma análise, guardados em arrays paralelos reaproveitados entre mensagens.
+     * Strings (termo, host, código) só são criadas quando o chamador as pede.
+     */
+    public static final class ScanResult {
+        private CharSequence content;
+        private int size;
+        private FindingType[] types = new FindingType[8];
+        private int[] starts = new int[8];
+        private int[] ends = new int[8];
+        private String[] terms = new String[8]; // Termo do dicionário (só para palavras ofensivas)
+        private int[] detailStarts = new int[8];
+        private int[] detailEnds = new int[8];
+
+        private void reset(CharSequence content) {
+            this.content = content;
+            Arrays.fill(terms, 0, size, null); // Não retém termos de dicionários já substituídos
+            this.size = 0;
+        }
+
+        private void add(FindingType type, int start, int end, String term, int detailStart, int detailEnd) {
+            if (size == types.length) {
+                // Sem limite: a política precisa ver todos os links e convites (um convite alheio depois de
+                // muitos do próprio servidor ainda é uma violação). O tamanho da mensagem já limita os achados.
+                int capacity = size * 2;
+                types = Arrays.copyOf(types, capacity);
+                starts = Arrays.copyOf(starts, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+                terms = Arrays.copyOf(terms, capacity);
+                detailStarts = Arrays.copyOf(detailStarts, capacity);
+                detailEnds = Arrays.copyOf(detailEnds, capacity);
+            }
+            types[size] = type;
+            starts[size] = start;
+            ends[size] = end;
+            terms[size] = term;
+            detailStarts[size] = detailStart;
+            detailEnds[size] = detailEnd;
+            size++;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean isClean() {
+            return size == 0;
+        }
+
+        /**
+         * @return O índice do primeiro achado do tipo informado, ou -1.
+         */
+        public int first(FindingType type) {
+            return next(type, -1);
+        }
+
+        /**
+         * @return O índice do próximo achado do tipo informado depois de {@code after}, ou -1.
+         */
+        public int next(FindingType type, int after) {
+            for (int i = after + 1; i < size; i++) {
+                if (types[i] == type) return i;
+            }
+            return -1;
+        }
+
+        public FindingType type(int index) {
+            return types[index];
+        }
+
+        /** Posição inicial (inclusiva) do achado no texto original. */
+        public int start(int index) {
+            return starts[index];
+        }
+
+        /** Posição final (exclusiva) do achado no texto original. */
+        public int end(int index) {
+            return ends[index];
+        }
+
+        /** Início do detalhe: o termo, o host da URL ou o código do convite. */
+        public int detailStart(int index) {
+            return detailStarts[index];
+        }
+
+        public int detailEnd(int index) {
+            return detailEnds[index];
+        }
+
+        /**
+         * @return O detalhe do achado: o termo do dicionário, o host da URL ou o código do convite.
+         */
+        public String detail(int index) {
+            if (types[index] == FindingType.PROFANE_WORD) {
+                return terms[index];
+            }
+            return content.subSequence(detailStarts[index], detailEnds[index]).toString();
+        }
+    }
+}
@@ -1,38 +1,196 @@
 package com.glsecurity.bot.dao;
 
+import com.glsecurity.bot.config.BotConfig;
+import com.glsecurity.bot.filter.GuildWordFilters;
+import com.glsecurity.bot.metrics.BotMetrics;
+import com.glsecurity.bot.model.ArchiveSegment;
 import com.glsecurity.bot.model.ServerSettings;
 import com.glsecurity.bot.model.Violation;
+import com.glsecurity.bot.model.ViolationCount;
 import jakarta.persistence.NoResultException;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.cfg.Configuration;
+import org.hibernate.query.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
 public class DatabaseManager {
 
     private static final Logger logger = LoggerFactory.getLogger(DatabaseManager.class);
     private static SessionFactory sessionFactory;
+    private final ServerSettingsCache settingsCache = new ServerSettingsCache(BotConfig.getSettingsCacheSize());
+    private final ViolationWriter violationWriter;
+    private final ViolationCounters violationCounters;
+    private final ViolationArchiver violationArchiver;
+    private final boolean serializeWrites;
+    private final GuildWordFilters wordFilters = new GuildWordFilters(BotConfig::getProfanityMatcher);
+    private final Function<String, ServerSettings> settingsLoader = this::loadServerSettings; // Evita criar a referência a cada consulta
+    private final Object settingsSaveLock = new Object();
+
+    private static final String INSERT_VIOLATION_SQL =
+            "INSERT INTO violations (server_id, server_name, user_id, user_name, violation_type, reason, message_content, timestamp) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPSERT_VIOLATION_COUNT_SQL =
+            "INSERT INTO violation_counts (server_id, violation_type, bucket_type, bucket_start, violation_count) VALUES (?, ?, ?, ?, ?) "
+            + "ON CONFLICT (server_id, violation_type, bucket_type, bucket_start) DO UPDATE SET violation_count = violation_count + excluded.violation_count";
+    private static final String UPSERT_ARCHIVE_SEGMENT_SQL =
+            "INSERT INTO archive_segments (file_name, period, min_timestamp, max_timestamp, row_count, created_at) VALUES (?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT (file_name) DO UPDATE SET min_timestamp = excluded.min_timestamp, max_timestamp = excluded.max_timestamp, row_count = excluded.row_count";
+    private static final long VIOLATION_DRAIN_TIMEOUT_MILLIS = 10_000;
+    private static final String VIOLATION_SPILL_FILE = "violations_spill.jsonl";
+    private static final String DEFAULT_DATABASE_FILE = "glsecurity_bot.db";
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int EXPORT_FETCH_SIZE = 1_000;
+    private static final int PRELOAD_CHUNK_SIZE = 500; // Parâmetros por consulta IN, abaixo do limite do SQLite
+
+    // O SQLite aceita um único escritor por vez; serializar as escritas aqui evita SQLITE_BUSY e espera ativa no driver
+    private static final ReentrantLock WRITE_LOCK = new ReentrantLock();
+
+    /**
+     * Perfis de persistência, cada um com seu arquivo de configuração do Hibernate.
+     */
+    public enum PersistenceProfile {
+        DEVELOPMENT("hibernate.cfg.xml"),           // Pool embutido do Hibernate, SQL no log
+        PRODUCTION("hibernate-production.cfg.xml"); // WAL, HikariCP, SQL no log desligado
+
+        private final String configFile;
+
+        PersistenceProfile(String configFile) {
+            this.configFile = configFile;
+        }
+
+        public String getConfigFile() {
+            return configFile;
+        }
+
+        public static PersistenceProfile fromConfig(String value) {
+            try {
+                return PersistenceProfile.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (Exception e) {
+                logger.warn("Perfil de persistência inválido: {}. Usando PRODUCTION.", value);
+                return PRODUCTION;
+            }
+        }
+    }
 
     public DatabaseManager() {
+        this(PersistenceProfile.fromConfig(BotConfig.getPersistenceProfile()), null);
+    }
+
+    /**
+     * @param profile O perfil de persistência.
+     * @param databaseFile Arquivo SQLite alternativo (usado pelos benchmarks), ou null para o padrão do perfil.
+     */
+    public DatabaseManager(PersistenceProfile profile, String databaseFile) {
+        this(profile, databaseFile, true, true);
+    }
+
+    /**
+     * Construtor usado pelos benchmarks, que não podem tocar nos arquivos nem nas threads do bot.
+     * @param profile O perfil de persistência.
+     * @param databaseFile Arquivo SQLite alternativo, ou null para o padrão do perfil.
+     * @param backgroundServices false para não criar o gravador assíncrono (nem reprocessar o arquivo de
+     *                           transbordo) e não carregar nem gravar periodicamente os contadores agregados.
+     * @param serializeWrites false para deixar as escritas concorrentes disputarem o SQLite sem a trava de escrita.
+     */
+    public DatabaseManager(PersistenceProfile profile, String databaseFile, boolean backgroundServices, boolean serializeWrites) {
+        this.serializeWrites = serializeWrites;
         if (sessionFactory == null) {
             try {
-                // Carrega a configuração do Hibernate a partir de hibernate.cfg.xml
-                Configuration configuration = new Configuration().configure("hibernate.cfg.xml");
+                // Carrega a configuração do Hibernate a partir do arquivo do perfil
+                Configuration configuration = new Configuration().configure(profile.getConfigFile());
+                if (databaseFile != null) {
+                    String url = configuration.getProperty("hibernate.connection.url");
+                    configuration.setProperty("hibernate.connection.url", url.replace(DEFAULT_DATABASE_FILE, databaseFile));
+                }
+                createDatabaseIfMissing(configuration.getProperty("hibernate.connection.url"));
 
                 // Adiciona as classes de entidade
                 configuration.addAnnotatedClass(ServerSettings.class);
                 configuration.addAnnotatedClass(Violation.class);
+                configuration.addAnnotatedClass(ViolationCount.class);
+                configuration.addAnnotatedClass(ArchiveSegment.class);
 
                 sessionFactory = configuration.buildSessionFactory();
-                logger.info("SessionFactory do Hibernate inicializada com sucesso.");
+                logger.info("SessionFactory do Hibernate inicializada com sucesso (perfil {}).", profile);
             } catch (Exception e) {
                 logger.error("Erro ao inicializar a SessionFactory do Hibernate: " + e.getMessage(), e);
                 throw new ExceptionInInitializerError(e);
             }
         }
+
+        violationCounters = new ViolationCounters(this, BotConfig.getCounterFlushSeconds());
+        if (backgroundServices) {
+            violationWriter = new ViolationWriter(this,
+                    BotConfig.getViolationQueueCapacity(),
+                    BotConfig.getViolationBatchSize(),
+                    BotConfig.getViolationFlushIntervalMillis(),
+                    ViolationWriter.OverflowPolicy.fromConfig(BotConfig.getViolationOverflowPolicy()),
+                    Paths.get(VIOLATION_SPILL_FILE));
+            // Os contadores precisam estar carregados antes que o gravador reprocesse violações pendentes
+            violationCounters.start();
+            violationWriter.start();
+        } else {
+            violationWriter = null; // saveViolation grava direto
+        }
+        violationArchiver = new ViolationArchiver(this, Paths.get(BotConfig.getArchiveDirectory()), BotConfig.getRetentionBatchSize());
+    }
+
+    // Cria o arquivo do banco com auto_vacuum incremental, para que a retenção possa devolver ao disco o espaço
+    // das violações arquivadas. O modo só pode ser escolhido antes da primeira página ser gravada (o journal_mode=WAL
+    // da URL já grava), então precisa acontecer antes do Hibernate abrir o banco. Bancos existentes não mudam.
+    private static void createDatabaseIfMissing(String url) {
+        String path = url.substring("jdbc:sqlite:".length());
+        int query = path.indexOf('?');
+        if (query >= 0) path = path.substring(0, query);
+        if (path.isEmpty() || path.startsWith(":") || Files.exists(Paths.get(path))) {
+            return;
+        }
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + path);
+             Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA auto_vacuum = INCREMENTAL");
+            statement.execute("VACUUM"); // Grava o cabeçalho com o modo escolhido
+            logger.info("Banco de dados '{}' criado com auto_vacuum incremental.", path);
+        } catch (SQLException e) {
+            logger.warn("Não foi possível preparar o banco de dados '{}': {}", path, e.getMessage());
+        }
+    }
+
+    private void lockWrites() {
+        if (serializeWrites) WRITE_LOCK.lock();
+    }
+
+    private void unlockWrites() {
+        if (serializeWrites) WRITE_LOCK.unlock();
     }
 
     /**
@@ -45,29 +203,181 @@ public class DatabaseManager {
 
     /**
      * Salva ou atualiza as configurações de um servidor.
+     * A gravação acontece fora do cache, que só recebe a cópia persistida depois do commit: leituras do mesmo servidor
+     * continuam vendo o valor anterior até lá, e nenhuma leitura de outro servidor espera pelo banco.
+     * O dicionário do servidor é recompilado aqui, fora do caminho das mensagens.
      * @param settings O objeto ServerSettings a ser salvo.
      */
     public void saveOrUpdateServerSettings(ServerSettings settings) {
+        // Gravações de configurações são raras; serializá-las garante que o cache termine com a última gravada
+        synchronized (settingsSaveLock) {
+            ServerSettings merged = persistServerSettings(settings);
+            if (merged == null) {
+                settingsCache.invalidate(settings.getServerId()); // Força uma nova leitura do banco
+                return;
+            }
+            wordFilters.refresh(merged.getServerId(), merged.getCustomWords(), merged.getExemptWords());
+            settingsCache.put(merged.getServerId(), merged);
+        }
+    }
+
+    // Grava no banco sem tocar no cache; retorna a cópia persistida, ou null em caso de erro
+    private ServerSettings persistServerSettings(ServerSettings settings) {
+        long start = System.nanoTime();
+        lockWrites();
         Session session = getSession();
         session.beginTransaction();
         try {
-            session.merge(settings); // Usa merge para salvar ou atualizar
+            ServerSettings merged = session.merge(settings); // Usa merge para salvar ou atualizar
             session.getTransaction().commit();
             logger.info("Configurações do servidor {} salvas/atualizadas com sucesso.", settings.getServerId());
+            return merged;
         } catch (Exception e) {
             session.getTransaction().rollback();
             logger.error("Erro ao salvar/atualizar configurações do servidor {}: {}", settings.getServerId(), e.getMessage(), e);
+            return null;
         } finally {
             session.close();
+            unlockWrites();
+            BotMetrics.DB_WRITE_SETTINGS.recordSince(start);
         }
     }
 
     /**
      * Obtém as configurações de um servidor pelo ID. Se não existirem, cria e salva configurações padrão.
+     * Após o primeiro carregamento, o valor vem do cache em memória.
      * @param serverId O ID do servidor.
      * @return As configurações do servidor, novas ou existentes.
      */
     public ServerSettings getServerSettings(String serverId) {
+        long start = System.nanoTime();
+        ServerSettings settings = settingsCache.get(serverId, settingsLoader);
+        BotMetrics.SETTINGS_LOOKUP_LATENCY.recordSince(start);
+        // Em caso de erro grave no DB, usa configurações padrão sem guardá-las no cache
+        return settings != null ? settings : new ServerSettings(serverId);
+    }
+
+    /**
+     * Consulta as configurações de um servidor sem criar as padrão, para leituras de fora da moderação (painel)
+     * que não devem gravar no banco nem encher o cache com servidores inexistentes.
+     * @param serverId O ID do servidor.
+     * @return As configurações (guardadas no cache se vieram do banco), ou null se o servidor não tem configurações.
+     */
+    public ServerSettings findServerSettings(String serverId) {
+        ServerSettings cached = settingsCache.getIfPresent(serverId);
+        if (cached != null) {
+            return cached;
+        }
+        Session session = getSession();
+        try {
+            ServerSettings settings = session.createQuery("FROM ServerSettings WHERE serverId = :serverId", ServerSettings.class)
+                                            .setParameter("serverId", serverId)
+                                            .uniqueResult();
+            if (settings != null && !settingsCache.putIfAbsent(serverId, settings)) {
+                return getServerSettings(serverId); // Carregada ou gravada nesse meio-tempo; devolve a do cache
+            }
+            return settings;
+        } finally {
+            session.close();
+        }
+    }
+
+    /**
+     * @return O registro de dicionários por servidor usado pela moderação.
+     */
+    public GuildWordFilters getWordFilters() {
+        return wordFilters;
+    }
+
+    /**
+     * @return O cache de configurações, para inspecionar acertos, falhas e remoções.
+     */
+    public ServerSettingsCache getSettingsCache() {
+        return settingsCache;
+    }
+
+    /**
+     * Carrega de uma vez as configurações de vários servidores (ex.: todos os servidores de um shard quando ele
+     * fica pronto), para que a primeira mensagem de cada um não pague uma consulta ao banco. Servidores sem
+     * configurações recebem as padrão, gravadas em uma única transação. Servidores já em cache são ignorados, e
+     * nenhuma entrada carregada ou gravada nesse meio-tempo é sobrescrita. Os dicionários próprios também são
+     * compilados aqui.
+     * @param serverIds Os IDs dos servidores.
+     * @return Quantos servidores entraram no cache.
+     */
+    public int preloadServerSettings(Collection<String> serverIds) {
+        List<String> missing = new ArrayList<>();
+        for (String serverId : serverIds) {
+            if (!settingsCache.contains(serverId)) missing.add(serverId);
+        }
+        if (missing.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, ServerSettings> found = new HashMap<>();
+        Session session = getSession();
+        try {
+            for (int from = 0; from < missing.size(); from += PRELOAD_CHUNK_SIZE) {
+                List<String> chunk = missing.subList(from, Math.min(from + PRELOAD_CHUNK_SIZE, missing.size()));
+                for (ServerSettings settings : session.createQuery("FROM ServerSettings WHERE serverId IN (:ids)", ServerSettings.class)
+                                                      .setParameterList("ids", chunk)
+                                                      .getResultList()) {
+                    found.put(settings.getServerId(), settings);
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Erro ao pré-carregar configurações de {} servidores: {}", missing.size(), e.getMessage(), e);
+            return 0; // Cada servidor será carregado na primeira mensagem
+        } finally {
+            session.close();
+        }
+
+        List<ServerSettings> created = new ArrayList<>();
+        for (String serverId : missing) {
+            if (!found.containsKey(serverId)) created.add(new ServerSettings(serverId));
+        }
+        if (!created.isEmpty() && persistDefaultSettings(created)) {
+            created.forEach(settings -> found.put(settings.getServerId(), settings));
+        }
+
+        int loaded = 0;
+        for (ServerSettings settings : found.values()) {
+            if (settingsCache.putIfAbsent(settings.getServerId(), settings)) {
+                loaded++;
+                if (!settings.getCustomWords().isEmpty() || !settings.getExemptWords().isEmpty()) {
+                    wordFilters.refresh(settings.getServerId(), settings.getCustomWords(), settings.getExemptWords());
+                }
+            }
+        }
+        return loaded;
+    }
+
+    // Grava as configurações padrão de vários servidores novos em uma transação; false em caso de erro
+    private boolean persistDefaultSettings(List<ServerSettings> settings) {
+        long start = System.nanoTime();
+        lockWrites();
+        Session session = getSession();
+        session.beginTransaction();
+        try {
+            for (ServerSettings entry : settings) {
+                session.persist(entry); // Ausentes na consulta; se outra thread criou a linha antes, o lote falha inteiro
+            }
+            session.getTransaction().commit();
+            logger.info("Configurações padrão criadas para {} servidores.", settings.size());
+            return true;
+        } catch (Exception e) {
+            session.getTransaction().rollback();
+            logger.error("Erro ao criar configurações padrão para {} servidores: {}", settings.size(), e.getMessage(), e);
+            return false;
+        } finally {
+            session.close();
+            unlockWrites();
+            BotMetrics.DB_WRITE_SETTINGS.recordSince(start);
+        }
+    }
+
+    // Carrega do banco (chamado pelo cache apenas em caso de falha); retorna null se o banco estiver indisponível
+    private ServerSettings loadServerSettings(String serverId) {
         Session session = getSession();
         try {
             ServerSettings settings = session.createQuery("FROM ServerSettings WHERE serverId = :serverId", ServerSettings.class)
@@ -76,43 +386,96 @@ public class DatabaseManager {
             if (settings == null) {
                 logger.info("Configurações não encontradas para o servidor {}. Criando configurações padrão.", serverId);
                 settings = new ServerSettings(serverId);
-                saveOrUpdateServerSettings(settings); // Salva as configurações padrão
+                ServerSettings persisted = persistServerSettings(settings); // Salva as configurações padrão
+                return persisted != null ? persisted : settings;
             }
             return settings;
         } catch (NoResultException e) {
             // Isso não deve acontecer com uniqueResult se o resultado for null, mas para robustez
             logger.info("Configurações não encontradas para o servidor {}. Criando configurações padrão.", serverId);
             ServerSettings settings = new ServerSettings(serverId);
-            saveOrUpdateServerSettings(settings);
-            return settings;
+            ServerSettings persisted = persistServerSettings(settings);
+            return persisted != null ? persisted : settings;
         } catch (Exception e) {
             logger.error("Erro ao buscar configurações do servidor {}: {}", serverId, e.getMessage(), e);
-            // Retorna configurações padrão em caso de erro grave no DB
-            return new ServerSettings(serverId);
+            return null;
         } finally {
             session.close();
         }
     }
 
     /**
-     * Salva uma nova violação no banco de dados.
+     * Enfileira uma nova violação para gravação assíncrona em lote.
      * @param violation O objeto Violation a ser salvo.
      */
     public void saveViolation(Violation violation) {
+        if (violationWriter != null) {
+            violationWriter.submit(violation);
+        } else {
+            insertViolations(Collections.singletonList(violation));
+        }
+    }
+
+    /**
+     * Insere várias violações em uma única transação usando inserção em lote do JDBC.
+     * Chamado pela thread do ViolationWriter.
+     * @param violations As violações a serem inseridas.
+     * @return true se o lote foi gravado, false se a transação foi desfeita.
+     */
+    public boolean insertViolations(List<Violation> violations) {
+        long start = System.nanoTime();
+        lockWrites();
         Session session = getSession();
         session.beginTransaction();
         try {
-            session.persist(violation); // Usa persist para salvar uma nova entidade
+            session.doWork(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(INSERT_VIOLATION_SQL)) {
+                    for (Violation violation : violations) {
+                        statement.setString(1, violation.getServerId());
+                        statement.setString(2, violation.getServerName());
+                        statement.setString(3, violation.getUserId());
+                        statement.setString(4, violation.getUserName());
+                        statement.setString(5, violation.getViolationType());
+                        statement.setString(6, violation.getReason());
+                        statement.setString(7, violation.getMessageContent());
+                        statement.setTimestamp(8, Timestamp.valueOf(violation.getTimestamp()));
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+            });
             session.getTransaction().commit();
-            logger.info("Violação registrada para o usuário {} no servidor {}.", violation.getUserName(), violation.getServerName());
+            violationCounters.record(violations);
+            logger.info("{} violações registradas em lote.", violations.size());
+            return true;
         } catch (Exception e) {
             session.getTransaction().rollback();
-            logger.error("Erro ao salvar violação para o usuário {} no servidor {}: {}", violation.getUserName(), violation.getServerName(), e.getMessage(), e);
+            logger.error("Erro ao salvar lote de {} violações: {}", violations.size(), e.getMessage(), e);
+            return false;
         } finally {
             session.close();
+            unlockWrites();
+            BotMetrics.DB_WRITE_VIOLATIONS.recordSince(start);
         }
     }
 
+    /**
+     * @return O gravador assíncrono de violações, para inspecionar a fila e os contadores.
+     */
+    public ViolationWriter getViolationWriter() {
+        return violationWriter;
+    }
+
+    /**
+     * Grava as violações pendentes e encerra o gravador assíncrono. Deve ser chamado antes de {@link #shutdown()}.
+     */
+    public void stopViolationWriter() {
+        if (violationWriter != null) {
+            violationWriter.shutdown(VIOLATION_DRAIN_TIMEOUT_MILLIS);
+        }
+        violationCounters.shutdown(); // Grava os contadores das últimas violações
+    }
+
     /**
      * Retorna uma lista das últimas N violações.
      * @param limit O número máximo de violações a serem retornadas.
@@ -133,20 +496,465 @@ public class DatabaseManager {
     }
 
     /**
-     * Retorna a contagem total de violações.
+     * Retorna uma página das violações de um servidor, das mais recentes para as mais antigas.
+     * Usa o índice (server_id, timestamp), então a latência não depende do tamanho da tabela.
+     * @param serverId O ID do servidor.
+     * @param cursor O cursor retornado pela página anterior, ou null para a primeira página.
+     * @param limit O número máximo de violações na página.
+     * @return A página de violações e o cursor da próxima.
+     */
+    public ViolationPage getViolationsByServer(String serverId, String cursor, int limit) {
+        return pageViolations("serverId", serverId, cursor, limit);
+    }
+
+    /**
+     * Retorna uma página das violações de um usuário (em todos os servidores), das mais recentes para as mais antigas.
+     * Usa o índice (user_id, timestamp).
+     * @param userId O ID do usuário.
+     * @param cursor O cursor retornado pela página anterior, ou null para a primeira página.
+     * @param limit O número máximo de violações na página.
+     * @return A página de violações e o cursor da próxima.
+     */
+    public ViolationPage getViolationsByUser(String userId, String cursor, int limit) {
+        return pageViolations("userId", userId, cursor, limit);
+    }
+
+    /**
+     * Retorna uma página de todas as violações, das mais recentes para as mais antigas. Usa o índice de timestamp.
+     * @param cursor O cursor retornado pela página anterior, ou null para a primeira página.
+     * @param limit O número máximo de violações na página.
+     * @return A página de violações e o cursor da próxima.
+     */
+    public ViolationPage getRecentViolations(String cursor, int limit) {
+        return pageViolations(null, null, cursor, limit);
+    }
+
+    // Paginação por cursor: "depois de (timestamp, id)" em vez de OFFSET, sempre resolvida por busca no índice
+    private ViolationPage pageViolations(String filterProperty, String filterValue, String cursor, int limit) {
+        ViolationPage.Position position = ViolationPage.decodeCursor(cursor);
+        limit = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        StringBuilder hql = new StringBuilder("FROM Violation v WHERE 1 = 1");
+        if (filterProperty != null) {
+            hql.append(" AND v.").append(filterProperty).append(" = :filterValue");
+        }
+        if (position != null) {
+            // O primeiro termo limita a faixa do índice; o segundo desempata violações com o mesmo timestamp
+            hql.append(" AND v.timestamp <= :cursorTimestamp AND (v.timestamp < :cursorTimestamp OR v.id < :cursorId)");
+        }
+        hql.append(" ORDER BY v.timestamp DESC, v.id DESC");
+
+        Session session = getSession();
+        try {
+            Query<Violation> query = session.createQuery(hql.toString(), Violation.class)
+                                            .setMaxResults(limit + 1); // Um a mais para saber se existe próxima página
+            if (filterProperty != null) {
+                query.setParameter("filterValue", filterValue);
+            }
+            if (position != null) {
+                query.setParameter("cursorTimestamp", position.timestamp);
+                query.setParameter("cursorId", position.id);
+            }
+            List<Violation> rows = query.getResultList();
+            if (rows.size() <= limit) {
+                return new ViolationPage(rows, null);
+            }
+            List<Violation> items = rows.subList(0, limit);
+            return new ViolationPage(items, ViolationPage.encodeCursor(items.get(limit - 1)));
+        } catch (Exception e) {
+            logger.error("Erro ao buscar página de violações ({} = {}): {}", filterProperty, filterValue, e.getMessage(), e);
+            return new ViolationPage(List.of(), null); // Retorna página vazia em caso de erro
+        } finally {
+            session.close();
+        }
+    }
+
+    /**
+     * Exporta as violações que atendem ao filtro, em ordem cronológica, escrevendo cada linha no fluxo assim que ela é lida.
+     * A leitura usa um cursor JDBC somente para frente, com tamanho de lote fixo e sem passar pelo contexto de persistência,
+     * então nenhuma linha fica retida depois de escrita e a memória usada não depende do número de linhas exportadas.
+     * Com WAL, a leitura longa não bloqueia a gravação de novas violações.
+     * @param filter Os critérios da exportação.
+     * @param format O formato de saída.
+     * @param out O fluxo de destino; é esvaziado (flush) ao final, mas não fechado.
+     * @return O número de violações exportadas.
+     * @throws IOException Se a escrita no fluxo falhar (ex.: o cliente desconectou).
+     */
+    public long exportViolations(ViolationExport.Filter filter, ViolationExport.Format format, OutputStream out) throws IOException {
+        StringBuilder sql = new StringBuilder("SELECT ").append(ViolationExport.EXPORT_COLUMNS_SQL).append(" FROM violations WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        if (filter.serverId != null) { sql.append(" AND server_id = ?"); params.add(filter.serverId); }
+        if (filter.userId != null) { sql.append(" AND user_id = ?"); params.add(filter.userId); }
+        if (filter.violationType != null) { sql.append(" AND violation_type = ?"); params.add(filter.violationType); }
+        if (filter.from != null) { sql.append(" AND timestamp >= ?"); params.add(Timestamp.valueOf(filter.from)); }
+        if (filter.to != null) { sql.append(" AND timestamp < ?"); params.add(Timestamp.valueOf(filter.to)); }
+        sql.append(" ORDER BY timestamp, id");
+
+        long start = System.nanoTime();
+        long[] rows = {0};
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        Session session = getSession();
+        try {
+            ViolationExport.writeHeader(format, writer);
+            // JDBC direto: o Hibernate levaria ~4x mais tempo montando entidades que seriam descartadas em seguida
+            session.doWork(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(sql.toString(),
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    statement.setFetchSize(EXPORT_FETCH_SIZE);
+                    for (int i = 0; i < params.size(); i++) {
+                        statement.setObject(i + 1, params.get(i));
+                    }
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        String[] values = new String[ViolationExport.COLUMNS.length]; // Reaproveitado a cada linha
+                        while (resultSet.next()) {
+                            readExportRow(resultSet, values);
+                            ViolationExport.writeRow(format, writer, values);
+                            rows[0]++;
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e); // Work só propaga SQLException
+                }
+            });
+            writer.flush();
+            logger.info("{} violações exportadas ({}, {}) em {} ms.", rows[0], format, filter, (System.nanoTime() - start) / 1_000_000);
+            return rows[0];
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            session.close();
+        }
+    }
+
+    // Lê as colunas de ViolationExport.EXPORT_COLUMNS_SQL da linha atual, na ordem de ViolationExport.COLUMNS
+    private static void readExportRow(ResultSet resultSet, String[] values) throws SQLException {
+        values[0] = Long.toString(resultSet.getLong(1));
+        Timestamp timestamp = resultSet.getTimestamp(2);
+        values[1] = timestamp == null ? null : timestamp.toLocalDateTime().toString();
+        for (int column = 3; column <= values.length; column++) {
+            values[column - 1] = resultSet.getString(column);
+        }
+    }
+
+    /**
+     * @return A retenção de violações, para arquivar o histórico antigo e consultar o arquivo morto.
+     */
+    public ViolationArchiver getViolationArchiver() {
+        return violationArchiver;
+    }
+
+    /**
+     * @return Os servidores com prazo de retenção próprio (dias; negativo guarda tudo).
+     */
+    Map<String, Integer> getRetentionOverrides() {
+        Session session = getSession();
+        try {
+            Map<String, Integer> overrides = new HashMap<>();
+            for (Object[] row : session.createQuery(
+                    "SELECT s.serverId, s.retentionDays FROM ServerSettings s WHERE s.retentionDays <> 0", Object[].class).getResultList()) {
+                overrides.put((String) row[0], (Integer) row[1]);
+            }
+            return overrides;
+        } finally {
+            session.close();
+        }
+    }
+
+    /**
+     * Lê, sem a trava de escrita, as violações mais antigas anteriores ao corte, em ordem cronológica.
+     * @param serverId O servidor, ou null para todos os servidores sem prazo de retenção próprio.
+     * @return Até {@code limit} linhas, com as colunas na ordem de {@link ViolationExport#COLUMNS}.
+     */
+    List<String[]> readExpiredViolations(String serverId, LocalDateTime cutoff, int limit) {
+        String sql = "SELECT " + ViolationExport.EXPORT_COLUMNS_SQL + " FROM violations WHERE "
+                + (serverId != null
+                        ? "server_id = ? AND timestamp < ?"
+                        : "timestamp < ? AND server_id NOT IN (SELECT server_id FROM server_settings WHERE retention_days <> 0)")
+                + " ORDER BY timestamp, id LIMIT ?";
+        List<String[]> rows = new ArrayList<>();
+        Session session = getSession();
+        try {
+            session.doWork(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    int parameter = 1;
+                    if (serverId != null) statement.setString(parameter++, serverId);
+                    statement.setTimestamp(parameter++, Timestamp.valueOf(cutoff));
+                    statement.setInt(parameter, limit);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            String[] values = new String[ViolationExport.COLUMNS.length];
+                            readExportRow(resultSet, values);
+                            rows.add(values);
+                        }
+                    }
+                }
+            });
+            return rows;
+        } finally {
+            session.close();
+        }
+    }
+
+    /**
+     * Apaga violações já gravadas no arquivo morto e atualiza o índice dos segmentos, em uma única transação.
+     * @param rows As linhas arquivadas (o id é a primeira coluna).
+     * @param segments Os segmentos que receberam as linhas, com o intervalo e a contagem atualizados.
+     * @return Quanto tempo a trava de escrita ficou com a exclusão, em nanossegundos (sem a espera por ela), ou -1 se
+     * a transação foi desfeita.
+     */
+    long deleteArchivedViolations(List<String[]> rows, Collection<ArchiveSegment> segments) {
+        long start = System.nanoTime();
+        lockWrites();
+        long locked = System.nanoTime();
+        Session session = getSession();
+        session.beginTransaction();
+        try {
+            session.doWork(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement("DELETE FROM violations WHERE id = ?")) {
+                    for (String[] row : rows) {
+                        statement.setLong(1, Long.parseLong(row[0]));
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+                try (PreparedStatement statement = connection.prepareStatement(UPSERT_ARCHIVE_SEGMENT_SQL)) {
+                    for (ArchiveSegment segment : segments) {
+                        statement.setString(1, segment.getFileName());
+                        statement.setString(2, segment.getPeriod());
+                        statement.setTimestamp(3, Timestamp.valueOf(segment.getMinTimestamp()));
+                        statement.setTimestamp(4, Timestamp.valueOf(segment.getMaxTimestamp()));
+                        statement.setLong(5, segment.getRowCount());
+                        statement.setTimestamp(6, Timestamp.valueOf(segment.getCreatedAt()));
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+            });
+            session.getTransaction().commit();
+            return System.nanoTime() - locked;
+        } catch (Exception e) {
+            session.getTransaction().rollback();
+            logger.error("Erro ao apagar lote de {} violações arquivadas: {}", rows.size(), e.getMessage(), e);
+            return -1;
+        } finally {
+            session.close();
+            unlockWrites();
+            BotMetrics.DB_WRITE_ARCHIVE.recordSince(start);
+        }
+    }
+
+    /**
+     * @return O índice do arquivo morto, ordenado pela violação mais antiga de cada segmento.
+     */
+    List<ArchiveSegment> getArchiveSegments() {
+        Session session = getSession();
+        try {
+            return session.createQuery("FROM ArchiveSegment ORDER BY minTimestamp, id", ArchiveSegment.class).getResultList();
+        } finally {
+            session.close();
+        }
+    }
+
+    /**
+     * Devolve ao sistema de arquivos até {@code maxPages} páginas livres do SQLite (deixadas pelas linhas apagadas).
+     * Só tem efeito em bancos com {@code auto_vacuum=INCREMENTAL} (os criados pelo bot); nos demais, as páginas livres
+     * são reaproveitadas pelas próximas gravações e o arquivo só diminui com um VACUUM manual.
+     * @return O número de páginas liberadas (0 quando não há mais o que liberar).
+     */
+    int reclaimFreePages(int maxPages) {
+        int[] freed = {0};
+        lockWrites();
+        Session session = getSession();
+        session.beginTransaction();
+        try {
+            session.doWork(connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    try (ResultSet mode = statement.executeQuery("PRAGMA auto_vacuum")) {
+                        if (!mode.next() || mode.getInt(1) != 2) { // 2 = INCREMENTAL
+                            return;
+                        }
+                    }
+                    int before = freelistCount(statement);
+                    // Cada passo da instrução libera uma página; executeUpdate executa todos (execute só daria o primeiro)
+                    statement.executeUpdate("PRAGMA incremental_vacuum(" + maxPages + ")");
+                    freed[0] = before - freelistCount(statement);
+                }
+            });
+            session.getTransaction().commit();
+        } catch (Exception e) {
+            session.getTransaction().rollback();
+            logger.warn("Não foi possível liberar as páginas livres do banco: {}", e.getMessage());
+            freed[0] = 0;
+        } finally {
+            session.close();
+            unlockWrites();
+        }
+        return freed[0];
+    }
+
+    private static int freelistCount(Statement statement) throws SQLException {
+        try (ResultSet count = statement.executeQuery("PRAGMA freelist_count")) {
+            return count.next() ? count.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Retorna a contagem total de violações, mantida em memória (O(1), sem COUNT(*)).
      * @return O número total de violações.
      */
     public long getTotalViolationsCount() {
+        return violationCounters.getTotal();
+    }
+
+    /**
+     * @return O número de violações de um servidor.
+     */
+    public long getViolationsCount(String serverId) {
+        return violationCounters.getTotal(serverId);
+    }
+
+    /**
+     * @return O número de violações de um servidor, por tipo de violação.
+     */
+    public Map<String, Long> getViolationsCountByType(String serverId) {
+        return violationCounters.getTotalsByType(serverId);
+    }
+
+    /**
+     * Retorna a série de contagens de um servidor por hora ou dia, lida da tabela agregada
+     * (uma linha por intervalo e tipo, independentemente do tamanho do histórico) e somada aos
+     * incrementos que ainda não foram gravados.
+     * @param serverId O ID do servidor.
+     * @param bucketType A granularidade (HOUR ou DAY).
+     * @param fromMillis Início do período (inclusivo), em milissegundos desde a época.
+     * @param toMillis Fim do período (exclusivo), em milissegundos desde a época.
+     * @return As contagens por intervalo e tipo, em ordem cronológica.
+     */
+    public List<ViolationCount> getViolationsHistogram(String serverId, ViolationCount.BucketType bucketType, long fromMillis, long toMillis) {
         Session session = getSession();
         try {
-            return session.createQuery("SELECT COUNT(*) FROM Violation", Long.class)
-                          .uniqueResult();
+            List<ViolationCount> counts = session.createQuery(
+                            "FROM ViolationCount c WHERE c.key.serverId = :serverId AND c.key.bucketType = :bucketType "
+                            + "AND c.key.bucketStart >= :from AND c.key.bucketStart < :to ORDER BY c.key.bucketStart", ViolationCount.class)
+                    .setParameter("serverId", serverId)
+                    .setParameter("bucketType", bucketType)
+                    .setParameter("from", bucketType.bucketStart(fromMillis))
+                    .setParameter("to", toMillis)
+                    .getResultList();
+            Map<ViolationCount.Key, Long> unflushed = violationCounters.getUnflushed(serverId, bucketType, bucketType.bucketStart(fromMillis), toMillis);
+            List<ViolationCount> result = new ArrayList<>(counts.size() + unflushed.size());
+            for (ViolationCount count : counts) {
+                Long delta = unflushed.remove(count.getKey());
+                if (delta != null) count.setCount(count.getCount() + delta);
+                result.add(count);
+            }
+            unflushed.forEach((key, delta) -> result.add(new ViolationCount(key, delta)));
+            result.sort(Comparator.comparingLong(count -> count.getKey().getBucketStart()));
+            return result;
         } catch (Exception e) {
-            logger.error("Erro ao contar violações: {}", e.getMessage(), e);
-            return 0;
+            logger.error("Erro ao buscar histograma de violações do servidor {}: {}", serverId, e.getMessage(), e);
+            return List.of();
+        } finally {
+            session.close();
+        }
+    }
+
+    /**
+     * Soma as variações informadas à tabela agregada de contagens, em uma única transação.
+     * Chamado periodicamente pelo ViolationCounters.
+     * @return true se as contagens foram gravadas.
+     */
+    boolean addViolationCounts(Map<ViolationCount.Key, Long> deltas) {
+        lockWrites();
+        Session session = getSession();
+        session.beginTransaction();
+        try {
+            session.doWork(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(UPSERT_VIOLATION_COUNT_SQL)) {
+                    for (Map.Entry<ViolationCount.Key, Long> entry : deltas.entrySet()) {
+                        ViolationCount.Key key = entry.getKey();
+                        statement.setString(1, key.getServerId());
+                        statement.setString(2, key.getViolationType());
+                        statement.setString(3, key.getBucketType().name());
+                        statement.setLong(4, key.getBucketStart());
+                        statement.setLong(5, entry.getValue());
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+            });
+            session.getTransaction().commit();
+            return true;
+        } catch (Exception e) {
+            session.getTransaction().rollback();
+            logger.error("Erro ao gravar contagens agregadas de violações: {}", e.getMessage(), e);
+            return false;
+        } finally {
+            session.close();
+            unlockWrites();
+        }
+    }
+
+    /**
+     * Reconstrói a tabela agregada a partir de {@code violations} quando ela está vazia
+     * (primeira execução com contadores ou tabela apagada). É a única varredura completa, feita uma vez.
+     */
+    void rebuildViolationCountsIfMissing() {
+        lockWrites();
+        Session session = getSession();
+        session.beginTransaction();
+        try {
+            session.doWork(connection -> {
+                try (Statement statement = connection.createStatement();
+                     ResultSet existing = statement.executeQuery("SELECT 1 FROM violation_counts LIMIT 1")) {
+                    if (existing.next()) return;
+                }
+                try (Statement statement = connection.createStatement()) {
+                    int rows = 0;
+                    for (ViolationCount.BucketType bucketType : ViolationCount.BucketType.values()) {
+                        long millis = bucketType.getMillis();
+                        rows += statement.executeUpdate(
+                                "INSERT INTO violation_counts (server_id, violation_type, bucket_type, bucket_start, violation_count) "
+                                + "SELECT server_id, violation_type, '" + bucketType.name() + "', (timestamp / " + millis + ") * " + millis + ", COUNT(*) "
+                                + "FROM violations GROUP BY server_id, violation_type, (timestamp / " + millis + ")");
+                    }
+                    if (rows > 0) {
+                        logger.info("Tabela de contagens de violações reconstruída ({} intervalos).", rows);
+                    }
+                }
+            });
+            session.getTransaction().commit();
+        } catch (Exception e) {
+            session.getTransaction().rollback();
+            logger.error("Erro ao reconstruir contagens de violações: {}", e.getMessage(), e);
+        } finally {
+            session.close();
+            unlockWrites();
+        }
+    }
+
+    /**
+     * @return Os totais gravados na tabela agregada, por servidor e tipo de violação.
+     */
+    Map<String, Map<String, Long>> loadViolationTotals() {
+        Map<String, Map<String, Long>> totals = new HashMap<>();
+        Session session = getSession();
+        try {
+            session.doWork(connection -> {
+                try (Statement statement = connection.createStatement();
+                     ResultSet rs = statement.executeQuery(
+                             "SELECT server_id, violation_type, SUM(violation_count) FROM violation_counts "
+                             + "WHERE bucket_type = 'DAY' GROUP BY server_id, violation_type")) {
+                    while (rs.next()) {
+                        totals.computeIfAbsent(rs.getString(1), k -> new HashMap<>()).put(rs.getString(2), rs.getLong(3));
+                    }
+                }
+            });
+        } catch (Exception e) {
+            logger.error("Erro ao carregar totais de violações: {}", e.getMessage(), e);
         } finally {
             session.close();
         }
+        return totals;
     }
 
     /**
@@ -155,6 +963,7 @@ public class DatabaseManager {
     public static void shutdown() {
         if (sessionFactory != null) {
             sessionFactory.close();
+            sessionFactory = null;
             logger.info("SessionFactory do Hibernate fechada.");
         }
     }
@@ -0,0 +1,69 @@
+package com.glsecurity.bot.listener;
+
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.hooks.EventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Listener registrado no JDA antes que o listener real exista, para que a conexão com o gateway não precise
+ * esperar o banco de dados ficar pronto.
+ *
+ * <p>Até {@link #attach(EventListener)}, as mensagens recebidas ficam em uma fila limitada (os demais eventos
+ * não interessam à moderação e são ignorados); ao anexar, elas são repassadas na ordem de chegada e, a partir
+ * daí, cada evento vai direto para o listener real, sem trava.</p>
+ */
+public class DeferredListener implements EventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeferredListener.class);
+
+    private final int capacity;
+    private final Queue<MessageReceivedEvent> pending = new ArrayDeque<>();
+    private volatile EventListener target;
+    private long dropped;
+
+    /**
+     * @param capacity Máximo de mensagens guardadas até o listener real ser anexado.
+     */
+    public DeferredListener(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void onEvent(GenericEvent event) {
+        EventListener current = target;
+        if (current == null) {
+            synchronized (this) {
+                current = target;
+                if (current == null) {
+                    if (event instanceof MessageReceivedEvent) {
+                        if (pending.size() < capacity) pending.add((MessageReceivedEvent) event);
+                        else dropped++;
+                    }
+                    return;
+                }
+            }
+        }
+        current.onEvent(event);
+    }
+
+    /**
+     * Repassa as mensagens guardadas ao listener e passa a entregar os eventos diretamente a ele.
+     * Eventos que chegam durante o repasse esperam, preservando a ordem.
+     */
+    public synchronized void attach(EventListener listener) {
+        int replayed = pending.size();
+        MessageReceivedEvent event;
+        while ((event = pending.poll()) != null) {
+            listener.onEvent(event);
+        }
+        target = listener;
+        if (replayed > 0 || dropped > 0) {
+            logger.info("{} mensagens recebidas durante a inicialização repassadas à moderação ({} descartadas por fila cheia).", replayed, dropped);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.glsecurity.bot.listener;
+
+import com.glsecurity.bot.metrics.BotMetrics;
+import com.glsecurity.bot.metrics.Counter;
+import com.glsecurity.bot.metrics.LatencyHistogram;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.channel.middleman.GuildMessageChannel;
+import net.dv8tion.jda.api.utils.TimeUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Agrupa as remoções de mensagens por canal para usar a exclusão em massa do Discord.
+ *
+ * <p>A primeira mensagem de um canal abre uma janela de {@code windowMillis}; as mensagens do mesmo canal
+ * detectadas nesse intervalo são apagadas juntas com {@code deleteMessagesByIds} (até 100 por chamada, só
+ * para mensagens com menos de 14 dias). Se a janela tiver uma única mensagem, se a mensagem for antiga ou se
+ * a chamada em massa falhar, cada mensagem é apagada individualmente. Durante um raid isso troca centenas de
+ * chamadas na mesma rota (e seus limites de taxa) por poucas.</p>
+ *
+ * <p>O tempo entre a detecção e a remoção confirmada é registrado em {@code glsecurity_deletion_seconds}.</p>
+ */
+public class DeletionScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeletionScheduler.class);
+
+    private static final int MAX_BULK_SIZE = 100;
+    // O Discord recusa a exclusão em massa de mensagens com 14 dias ou mais; a margem cobre a espera na janela
+    private static final long MAX_BULK_AGE_MILLIS = TimeUnit.DAYS.toMillis(14) - TimeUnit.MINUTES.toMillis(5);
+
+    private final long windowMillis;
+    private final Map<Long, Batch> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "deletion-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LatencyHistogram bulkLatency = BotMetrics.REGISTRY.histogram("glsecurity_deletion_seconds",
+            "Tempo entre a detecção da violação e a remoção confirmada da mensagem.", "mode", "bulk");
+    private final LatencyHistogram singleLatency = BotMetrics.REGISTRY.histogram("glsecurity_deletion_seconds",
+            "Tempo entre a detecção da violação e a remoção confirmada da mensagem.", "mode", "single");
+    private final Counter bulkCalls = BotMetrics.REGISTRY.counter("glsecurity_bulk_delete_calls_total",
+            "Chamadas de exclusão em massa enviadas ao Discord.");
+    private final Counter bulkMessages = BotMetrics.REGISTRY.counter("glsecurity_bulk_deleted_messages_total",
+            "Mensagens removidas por exclusão em massa.");
+
+    private static final class PendingDeletion {
+        private final long messageId;
+        private final String authorName;
+        private final long detectedAtNanos;
+
+        private PendingDeletion(long messageId, String authorName, long detectedAtNanos) {
+            this.messageId = messageId;
+            this.authorName = authorName;
+            this.detectedAtNanos = detectedAtNanos;
+        }
+    }
+
+    private static final class Batch {
+        private final GuildMessageChannel channel;
+        private final List<PendingDeletion> deletions = new ArrayList<>();
+
+        private Batch(GuildMessageChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * @param windowMillis Tempo que a primeira mensagem de um canal espera por outras; zero ou negativo
+     *                     desativa o agrupamento (cada mensagem é apagada na hora).
+     */
+    public DeletionScheduler(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * Agenda a remoção de uma mensagem de servidor.
+     * @param message A mensagem que violou as regras.
+     * @param detectedAtNanos O momento da detecção ({@link System#nanoTime()}).
+     */
+    public void delete(Message message, long detectedAtNanos) {
+        PendingDeletion deletion = new PendingDeletion(message.getIdLong(), message.getAuthor().getName(), detectedAtNanos);
+        if (windowMillis <= 0) {
+            deleteSingle(message.getGuildChannel(), deletion);
+            return;
+        }
+
+        long channelId = message.getChannel().getIdLong();
+        Batch[] full = new Batch[1];
+        Batch[] opened = new Batch[1];
+        pending.compute(channelId, (id, batch) -> {
+            if (batch == null) {
+                batch = new Batch(message.getGuildChannel());
+                opened[0] = batch;
+            }
+            batch.deletions.add(deletion);
+            if (batch.deletions.size() >= MAX_BULK_SIZE) {
+                full[0] = batch; // Lote cheio: sai agora, e a próxima mensagem abre outra janela
+                return null;
+            }
+            return batch;
+        });
+
+        if (full[0] != null) {
+            scheduler.execute(() -> flush(full[0]));
+        } else if (opened[0] != null) {
+            Batch batch = opened[0];
+            scheduler.schedule(() -> flushWindow(channelId, batch), windowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Fim da janela de um lote: se ele já saiu por estar cheio, o lote que estiver no canal agora tem a própria janela
+    private void flushWindow(long channelId, Batch batch) {
+        if (pending.remove(channelId, batch)) {
+            flush(batch);
+        }
+    }
+
+    private void flush(long channelId) {
+        Batch batch = pending.remove(channelId);
+        if (batch != null) {
+            flush(batch);
+        }
+    }
+
+    private void flush(Batch batch) {
+        try {
+            long oldestAllowed = System.currentTimeMillis() - MAX_BULK_AGE_MILLIS;
+            List<PendingDeletion> bulk = new ArrayList<>(batch.deletions.size());
+            for (PendingDeletion deletion : batch.deletions) {
+                if (TimeUtil.getTimeCreated(deletion.messageId).toInstant().toEpochMilli() > oldestAllowed) {
+                    bulk.add(deletion);
+                } else {
+                    deleteSingle(batch.channel, deletion); // Antiga demais para a exclusão em massa
+                }
+            }
+            if (bulk.size() >= 2) {
+                deleteBulk(batch.channel, bulk);
+            } else if (bulk.size() == 1) {
+                deleteSingle(batch.channel, bulk.get(0));
+            }
+        } catch (Exception e) {
+            logger.error("Erro ao apagar mensagens do canal {}: {}", batch.channel.getName(), e.getMessage(), e);
+        }
+    }
+
+    private void deleteBulk(GuildMessageChannel channel, List<PendingDeletion> deletions) {
+        List<String> ids = new ArrayList<>(deletions.size());
+        for (PendingDeletion deletion : deletions) {
+            ids.add(Long.toUnsignedString(deletion.messageId));
+        }
+        long start = System.nanoTime();
+        bulkCalls.increment();
+        channel.deleteMessagesByIds(ids).queue(
+                success -> {
+                    BotMetrics.restCompleted("bulk_delete", start);
+                    bulkMessages.add(deletions.size());
+                    for (PendingDeletion deletion : deletions) {
+                        bulkLatency.recordSince(deletion.detectedAtNanos);
+                    }
+                    logger.info("{} mensagens deletadas em lote no canal {}.", deletions.size(), channel.getName());
+                },
+                error -> {
+                    BotMetrics.restFailed("bulk_delete", start);
+                    logger.warn("Falha na exclusão em lote de {} mensagens no canal {}: {}. Apagando individualmente.",
+                            deletions.size(), channel.getName(), error.getMessage());
+                    for (PendingDeletion deletion : deletions) {
+                        deleteSingle(channel, deletion);
+                    }
+                }
+        );
+    }
+
+    private void deleteSingle(GuildMessageChannel channel, PendingDeletion deletion) {
+        long start = System.nanoTime();
+        channel.deleteMessageById(deletion.messageId).queue(
+                success -> {
+                    BotMetrics.restCompleted("delete_message", start);
+                    singleLatency.recordSince(deletion.detectedAtNanos);
+                    logger.info("Mensagem deletada de {} no canal {}.", deletion.authorName, channel.getName());
+                },
+                error -> {
+                    BotMetrics.restFailed("delete_message", start);
+                    logger.error("Falha ao deletar mensagem de {}: {}.", deletion.authorName, error.getMessage());
+                }
+        );
+    }
+
+    /**
+     * Apaga imediatamente as mensagens ainda na janela e encerra o agendador.
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+        for (Long channelId : pending.keySet()) {
+            flush(channelId);
+        }
+        logger.info("Remoções: {} chamadas em lote, {} mensagens removidas em lote.", bulkCalls.get(), bulkMessages.get());
+    }
+}
@@ -0,0 +1,181 @@
+package com.glsecurity.bot.filter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Decide o destino de um link pelo host: listas de bloqueio e de permissão por servidor e globais.
+ *
+ * <p>A ordem de precedência é: bloqueio do servidor, permissão do servidor, bloqueio global, permissão global.
+ * Hosts fora de todas as listas ficam a cargo do {@code blockLinks} do servidor. A lista global de bloqueio
+ * pode vir de um arquivo com centenas de milhares de domínios conhecidos de phishing; ela é montada em uma
+ * thread própria ({@link #loadBlockListAsync(Path)}) e publicada quando fica pronta, sem atrasar a conexão
+ * com o Discord. As listas de cada servidor são pequenas, compiladas sob demanda e guardadas em cache como
+ * os dicionários de palavras ({@link GuildWordFilters}).</p>
+ */
+public class DomainFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(DomainFilter.class);
+
+    public enum Verdict {
+        DENIED,   // Em uma lista de bloqueio
+        ALLOWED,  // Em uma lista de permissão
+        UNLISTED  // Em nenhuma lista: decide o blockLinks do servidor
+    }
+
+    private final Supplier<List<String>> globalAllowed;
+    private final Supplier<List<String>> globalBlocked;
+    private volatile DomainSet blockListFile = DomainSet.empty();
+    private volatile Lists globalLists;
+    private final Map<String, Lists> guildLists = new ConcurrentHashMap<>();
+
+    // Conjuntos compilados de um par de listas, com as listas de origem para comparação por identidade
+    private static final class Lists {
+        private final List<String> allowed;
+        private final List<String> blocked;
+        private final DomainSet allowSet;
+        private final DomainSet blockSet;
+
+        private Lists(List<String> allowed, List<String> blocked) {
+            this.allowed = allowed;
+            this.blocked = blocked;
+            this.allowSet = DomainSet.of(allowed);
+            this.blockSet = DomainSet.of(blocked);
+        }
+
+        private boolean isBuiltFrom(List<String> allowed, List<String> blocked) {
+            return this.allowed == allowed && this.blocked == blocked;
+        }
+    }
+
+    /**
+     * @param globalAllowed Fonte da lista global de permissão (ex.: {@code BotConfig::getAllowedDomains}).
+     * @param globalBlocked Fonte da lista global de bloqueio escrita na configuração.
+     */
+    public DomainFilter(Supplier<List<String>> globalAllowed, Supplier<List<String>> globalBlocked) {
+        this.globalAllowed = globalAllowed;
+        this.globalBlocked = globalBlocked;
+    }
+
+    /**
+     * Lê o arquivo de domínios bloqueados (um por linha, ou no formato de arquivo hosts) em segundo plano.
+     * Até a leitura terminar, só as listas da configuração valem.
+     * @return Um future concluído com o número de domínios carregados (0 se o arquivo não existir ou falhar).
+     */
+    public CompletableFuture<Integer> loadBlockListAsync(Path file) {
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        Thread loader = new Thread(() -> future.complete(loadBlockList(file)), "domain-list-loader");
+        loader.setDaemon(true);
+        loader.start();
+        return future;
+    }
+
+    private int loadBlockList(Path file) {
+        if (!Files.exists(file)) {
+            logger.info("Arquivo de domínios bloqueados '{}' não encontrado; usando só as listas da configuração.", file);
+            return 0;
+        }
+        long start = System.nanoTime();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            DomainSet.Builder builder = new DomainSet.Builder(1 << 16);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                builder.add(line);
+            }
+            DomainSet set = builder.build();
+            blockListFile = set;
+            logger.info("{} domínios bloqueados carregados de '{}' em {} ms.", set.size(), file, (System.nanoTime() - start) / 1_000_000);
+            return set.size();
+        } catch (IOException e) {
+            logger.error("Erro ao ler o arquivo de domínios bloqueados '{}': {}", file, e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Classifica o host de um link.
+     * @param serverId O ID do servidor.
+     * @param allowed Domínios permitidos pelo servidor.
+     * @param blocked Domínios bloqueados pelo servidor.
+     * @param text O texto que contém o host.
+     * @param hostStart Início do host em {@code text}.
+     * @param hostEnd Fim (exclusivo) do host em {@code text}.
+     */
+    public Verdict check(String serverId, List<String> allowed, List<String> blocked, CharSequence text, int hostStart, int hostEnd) {
+        if (!allowed.isEmpty() || !blocked.isEmpty()) {
+            Lists guild = guildLists(serverId, allowed, blocked);
+            if (guild.blockSet.matches(text, hostStart, hostEnd)) return Verdict.DENIED;
+            if (guild.allowSet.matches(text, hostStart, hostEnd)) return Verdict.ALLOWED;
+        }
+        Lists global = globalLists();
+        if (blockListFile.matches(text, hostStart, hostEnd) || global.blockSet.matches(text, hostStart, hostEnd)) {
+            return Verdict.DENIED;
+        }
+        return global.allowSet.matches(text, hostStart, hostEnd) ? Verdict.ALLOWED : Verdict.UNLISTED;
+    }
+
+    /**
+     * @return true se algum link pode ser bloqueado mesmo com o {@code blockLinks} do servidor desligado.
+     */
+    public boolean hasBlockLists(List<String> guildBlocked) {
+        return !guildBlocked.isEmpty() || blockListFile.size() > 0 || globalLists().blockSet.size() > 0;
+    }
+
+    /**
+     * Descarta as listas compiladas de um servidor.
+     */
+    public void invalidate(String serverId) {
+        guildLists.remove(serverId);
+    }
+
+    private Lists guildLists(String serverId, List<String> allowed, List<String> blocked) {
+        Lists lists = guildLists.get(serverId);
+        if (lists == null || !lists.isBuiltFrom(allowed, blocked)) {
+            lists = new Lists(allowed, blocked); // Listas curtas: compilar aqui custa menos que uma consulta ao banco
+            guildLists.put(serverId, lists);
+        }
+        return lists;
+    }
+
+    // As listas globais acompanham a configuração recarregada (BotConfig publica listas novas a cada mudança)
+    private Lists globalLists() {
+        List<String> allowed = nonNull(globalAllowed.get());
+        List<String> blocked = nonNull(globalBlocked.get());
+        Lists lists = globalLists;
+        if (lists == null || !lists.isBuiltFrom(allowed, blocked)) {
+            lists = new Lists(allowed, blocked);
+            globalLists = lists;
+        }
+        return lists;
+    }
+
+    private static List<String> nonNull(List<String> list) {
+        return list != null ? list : Collections.emptyList();
+    }
+
+    /**
+     * @return Número de domínios carregados do arquivo de bloqueio.
+     */
+    public int getBlockListSize() {
+        return blockListFile.size();
+    }
+
+    /**
+     * @return Número de servidores com listas próprias compiladas.
+     */
+    public int size() {
+        return guildLists.size();
+    }
+}
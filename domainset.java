@@ -0,0 +1,186 @@
+package com.glsecurity.bot.filter;
+
+import java.util.Collection;
+
+/**
+ * Conjunto compacto de domínios para consulta por sufixo de host.
+ *
+ * <p>Cada domínio vira um hash de 64 bits calculado da direita para a esquerda (do TLD para os subdomínios),
+ * guardado em uma tabela de endereçamento aberto de {@code long}. A consulta percorre o host uma única vez de
+ * trás para frente, testando o hash acumulado em cada fronteira de rótulo ("a.b.scam.xyz" testa
+ * "xyz", "scam.xyz", "b.scam.xyz" e o host inteiro), então custa O(tamanho do host) sem criar strings.
+ * Com 8 bytes por posição e carga máxima de 50%, meio milhão de domínios ocupam cerca de 8 MB.</p>
+ *
+ * <p>Formatos aceitos por entrada:
+ * <ul>
+ *     <li>{@code example.com}: o domínio e todos os seus subdomínios;</li>
+ *     <li>{@code *.example.com}: só os subdomínios.</li>
+ * </ul>
+ * A chance de falso positivo por colisão de hash é da ordem de n/2<sup>64</sup>.</p>
+ */
+public final class DomainSet {
+
+    private static final long EMPTY = 0L;
+    private static final long SUBTREE = 0L;  // Bit baixo da chave: domínio e subdomínios
+    private static final long WILDCARD = 1L; // Bit baixo da chave: só subdomínios
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final DomainSet NONE = new DomainSet(new long[2], 0);
+
+    private final long[] table;
+    private final int mask;
+    private final int size;
+
+    private DomainSet(long[] table, int size) {
+        this.table = table;
+        this.mask = table.length - 1;
+        this.size = size;
+    }
+
+    /**
+     * @return Um conjunto vazio.
+     */
+    public static DomainSet empty() {
+        return NONE;
+    }
+
+    /**
+     * Monta o conjunto a partir de uma lista de domínios (linhas vazias e inválidas são ignoradas).
+     */
+    public static DomainSet of(Collection<String> domains) {
+        Builder builder = new Builder(domains.size());
+        for (String domain : domains) {
+            builder.add(domain);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Verifica se o host (ou algum domínio pai dele) está no conjunto.
+     * @param text O texto que contém o host (ex.: a mensagem inteira).
+     * @param start Início do host em {@code text}.
+     * @param end Fim (exclusivo) do host em {@code text}.
+     */
+    public boolean matches(CharSequence text, int start, int end) {
+        if (size == 0) {
+            return false;
+        }
+        while (end > start && text.charAt(end - 1) == '.') end--; // "example.com." é o mesmo host
+        long hash = FNV_OFFSET;
+        for (int i = end - 1; i >= start; i--) {
+            hash = (hash ^ lower(text.charAt(i))) * FNV_PRIME;
+            if (i == start) {
+                return contains(key(hash, SUBTREE));
+            }
+            if (text.charAt(i - 1) == '.'
+                    && (contains(key(hash, SUBTREE)) || contains(key(hash, WILDCARD)))) {
+                return true; // Domínio pai listado (o host é um subdomínio dele)
+            }
+        }
+        return false;
+    }
+
+    private boolean contains(long key) {
+        for (int slot = (int) (key ^ (key >>> 32)) & mask; ; slot = (slot + 1) & mask) {
+            long value = table[slot];
+            if (value == key) return true;
+            if (value == EMPTY) return false;
+        }
+    }
+
+    /**
+     * @return Número de domínios distintos no conjunto.
+     */
+    public int size() {
+        return size;
+    }
+
+    private static long key(long hash, long kind) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        long key = (hash & ~1L) | kind;
+        return key == EMPTY ? 2L : key;
+    }
+
+    private static char lower(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    /**
+     * Acumula domínios para listas grandes (ex.: lidas de arquivo linha a linha) sem guardar as strings.
+     */
+    public static final class Builder {
+        private long[] table;
+        private int size;
+
+        public Builder(int expectedSize) {
+            this.table = new long[tableSizeFor(expectedSize)];
+        }
+
+        /**
+         * Adiciona um domínio. Aceita também linhas no formato de arquivo hosts ("0.0.0.0 example.com")
+         * e ignora comentários iniciados por '#'.
+         * @return true se a linha continha um domínio válido.
+         */
+        public boolean add(String line) {
+            if (line == null) return false;
+            int comment = line.indexOf('#');
+            String domain = (comment >= 0 ? line.substring(0, comment) : line).trim();
+            int space = Math.max(domain.lastIndexOf(' '), domain.lastIndexOf('\t'));
+            if (space >= 0) domain = domain.substring(space + 1); // Formato hosts: o domínio é o último campo
+
+            long kind = SUBTREE;
+            if (domain.startsWith("*.")) {
+                kind = WILDCARD;
+                domain = domain.substring(2);
+            } else if (domain.startsWith(".")) {
+                domain = domain.substring(1); // ".example.com" (formato comum em listas): domínio e subdomínios
+            }
+            while (domain.endsWith(".")) domain = domain.substring(0, domain.length() - 1);
+            if (domain.isEmpty()) return false;
+
+            long hash = FNV_OFFSET;
+            for (int i = domain.length() - 1; i >= 0; i--) {
+                hash = (hash ^ lower(domain.charAt(i))) * FNV_PRIME;
+            }
+            insert(key(hash, kind));
+            return true;
+        }
+
+        private void insert(long key) {
+            if ((size + 1) * 2 > table.length) {
+                long[] old = table;
+                table = new long[old.length * 2];
+                size = 0;
+                for (long value : old) {
+                    if (value != EMPTY) insert(value);
+                }
+            }
+            int mask = table.length - 1;
+            for (int slot = (int) (key ^ (key >>> 32)) & mask; ; slot = (slot + 1) & mask) {
+                if (table[slot] == key) return;
+                if (table[slot] == EMPTY) {
+                    table[slot] = key;
+                    size++;
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Entrega a tabela ao conjunto (sem cópia, para listas grandes); o builder não deve mais ser usado.
+         */
+        public DomainSet build() {
+            DomainSet set = size == 0 ? NONE : new DomainSet(table, size);
+            table = null;
+            return set;
+        }
+
+        private static int tableSizeFor(int expectedSize) {
+            return Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.glsecurity.bot.filter;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contador de mensagens por usuário e servidor em janela deslizante, para detectar flood.
+ *
+ * <p>A memória é fixa: uma tabela de endereçamento aberto em um único {@link AtomicLongArray}, com duas
+ * posições por entrada (chave e estado), indexada pelos snowflakes primitivos do servidor e do usuário.
+ * O estado cabe em um long (etiqueta da chave, índice da janela atual, contagem da janela atual e contagem da
+ * anterior) e é atualizado com CAS, sem travas e sem alocação. A contagem deslizante é estimada como
+ * {@code anterior * (fração restante da janela anterior) + atual}.</p>
+ *
+ * <p>Entradas sem mensagens há mais de duas janelas estão expiradas e são reaproveitadas pela próxima chave
+ * que cair na mesma vizinhança, então milhões de usuários passam pela tabela sem que ela cresça. Se toda a
+ * vizinhança estiver ativa, a entrada menos recente é substituída (a contagem daquele usuário recomeça).</p>
+ *
+ * <p>Reivindicar uma entrada troca só a chave; o estado não é zerado em uma segunda escrita, que poderia se
+ * intercalar com o CAS de outra thread. Em vez disso, o estado carrega os bits altos da chave que o gravou: quem
+ * encontra a própria chave com um estado de outra etiqueta recomeça a contagem no mesmo CAS que registra a
+ * mensagem, e um registro atrasado do usuário despejado que ainda caia no estado antigo é descartado por ele.
+ * A substituição de entradas ativas evita chaves com a mesma etiqueta, para que a contagem nunca passe de um
+ * usuário para outro.</p>
+ */
+public class FloodDetector {
+
+    private static final int MAX_PROBES = 8;
+    private static final long COUNT_MASK = 0x3FFL; // 10 bits: satura bem acima de qualquer limite de flood
+    private static final int TAG_SHIFT = 52;        // 12 bits altos: etiqueta da chave dona do estado
+    private static final long EMPTY = 0L;
+    private static final long DISCORD_EPOCH = 1420070400000L; // Mantém o índice da janela em 32 bits
+    private static final long MIN_WINDOW_MILLIS = 1_000;
+
+    private final AtomicLongArray table; // [chave, estado] por entrada
+    private final int mask;
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param capacity Número de entradas; arredondado para a próxima potência de 2.
+     */
+    public FloodDetector(int capacity) {
+        int size = Integer.highestOneBit(Math.max(MAX_PROBES, capacity - 1)) << 1;
+        this.table = new AtomicLongArray(size * 2);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Registra uma mensagem e retorna quantas mensagens o usuário enviou na janela deslizante.
+     * @param guildId O snowflake do servidor.
+     * @param userId O snowflake do usuário.
+     * @param timestampMillis O horário da mensagem (epoch em milissegundos).
+     * @param windowMillis A duração da janela (mínimo de 1 segundo).
+     * @return A contagem estimada na janela, incluindo esta mensagem.
+     */
+    public int record(long guildId, long userId, long timestampMillis, long windowMillis) {
+        windowMillis = Math.max(MIN_WINDOW_MILLIS, windowMillis);
+        timestampMillis -= DISCORD_EPOCH;
+        long key = keyOf(guildId, userId);
+        long tag = key >>> TAG_SHIFT;
+        long messageWindow = timestampMillis / windowMillis;
+
+        while (true) {
+            int slot = findSlot(key, tag, messageWindow);
+            int index = slot * 2 + 1;
+            while (true) {
+                long state = table.get(index);
+                long window = messageWindow;
+                long current;
+                long previous;
+                long stateWindow = windowOf(state);
+                if (tagOf(state) != tag) {
+                    if (table.get(slot * 2) != key) {
+                        break; // A entrada foi reivindicada por outra chave: procura de novo
+                    }
+                    previous = 0; // Entrada recém-reivindicada: o estado ainda é do dono anterior
+                    current = 0;
+                } else if (stateWindow == window) {
+                    current = currentOf(state);
+                    previous = previousOf(state);
+                } else if (stateWindow == window - 1) {
+                    previous = currentOf(state); // A janela atual virou a anterior
+                    current = 0;
+                } else if (stateWindow > window) {
+                    // Mensagem atrasada (fora de ordem): conta na janela mais recente
+                    window = stateWindow;
+                    current = currentOf(state);
+                    previous = previousOf(state);
+                } else {
+                    previous = 0;
+                    current = 0;
+                }
+                current = Math.min(COUNT_MASK, current + 1);
+                if (table.compareAndSet(index, state, pack(tag, window, current, previous))) {
+                    double elapsed = (double) (timestampMillis - window * windowMillis) / windowMillis;
+                    return (int) Math.min(Integer.MAX_VALUE, current + (long) Math.floor(previous * Math.max(0, 1 - elapsed)));
+                }
+            }
+        }
+    }
+
+    // Encontra a entrada da chave, ou reivindica uma vazia/expirada/a menos recente da vizinhança
+    private int findSlot(long key, long tag, long window) {
+        int start = (int) (key ^ (key >>> 32)) & mask;
+        int oldestSlot = -1;
+        long oldestWindow = Long.MAX_VALUE;
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int slot = (start + probe) & mask;
+            long slotKey = table.get(slot * 2);
+            if (slotKey == key) {
+                return slot;
+            }
+            long slotWindow = windowOf(table.get(slot * 2 + 1));
+            if (slotKey == EMPTY || slotWindow < window - 1) {
+                // Estado expirado: mesmo com etiqueta igual, a janela antiga já conta como zero
+                if (claim(slot, slotKey, key)) return slot;
+                if (table.get(slot * 2) == key) return slot; // Outra thread reivindicou para a mesma chave
+                continue;
+            }
+            if (slotWindow < oldestWindow && slotKey >>> TAG_SHIFT != tag) {
+                oldestWindow = slotWindow;
+                oldestSlot = slot;
+            }
+        }
+        if (oldestSlot < 0) {
+            oldestSlot = start; // Todas as entradas ativas têm a mesma etiqueta (praticamente impossível)
+        }
+        long victim = table.get(oldestSlot * 2);
+        if (victim != key && claim(oldestSlot, victim, key)) {
+            evictions.increment();
+        }
+        return oldestSlot;
+    }
+
+    // Troca só a chave; record() recomeça a contagem ao ver o estado com a etiqueta do dono anterior
+    private boolean claim(int slot, long expectedKey, long key) {
+        return table.compareAndSet(slot * 2, expectedKey, key);
+    }
+
+    static long keyOf(long guildId, long userId) {
+        // Mistura os dois snowflakes (cujos bits baixos variam pouco); 0 é reservado para "vazio"
+        long h = guildId * 0x9E3779B97F4A7C15L ^ Long.rotateLeft(userId * 0xC2B2AE3D27D4EB4FL, 31);
+        h ^= h >>> 29;
+        return h == EMPTY ? 1 : h;
+    }
+
+    private static long pack(long tag, long window, long current, long previous) {
+        return (tag << TAG_SHIFT) | (window << 20) | (current << 10) | previous;
+    }
+
+    private static long tagOf(long state) {
+        return state >>> TAG_SHIFT;
+    }
+
+    private static long windowOf(long state) {
+        return (state >>> 20) & 0xFFFFFFFFL;
+    }
+
+    private static long currentOf(long state) {
+        return (state >>> 10) & COUNT_MASK;
+    }
+
+    private static long previousOf(long state) {
+        return state & COUNT_MASK;
+    }
+
+    /**
+     * @return Número de entradas da tabela (memória fixa: 16 bytes por entrada).
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return Quantas vezes uma entrada ativa precisou ser substituída por falta de espaço na vizinhança.
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+}
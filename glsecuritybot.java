@@ -1,22 +1,48 @@
 package com.glsecurity.bot;
 
 import com.glsecurity.bot.config.BotConfig;
+import com.glsecurity.bot.config.CacheProfile;
+import com.glsecurity.bot.config.ConfigWatcher;
 import com.glsecurity.bot.dao.DatabaseManager;
+import com.glsecurity.bot.filter.DomainFilter;
+import com.glsecurity.bot.listener.DeferredListener;
+import com.glsecurity.bot.listener.DeletionScheduler;
+import com.glsecurity.bot.listener.InviteCache;
 import com.glsecurity.bot.listener.MessageListener;
+import com.glsecurity.bot.listener.ShardedModerationExecutor;
+import com.glsecurity.bot.listener.WarningDispatcher;
+import com.glsecurity.bot.metrics.BotMetrics;
+import com.glsecurity.bot.metrics.MetricsRegistry;
+import com.glsecurity.bot.metrics.MetricsServer;
+import com.glsecurity.bot.panel.PanelServer;
 import io.github.cdimascio.dotenv.Dotenv;
 import net.dv8tion.jda.api.JDA;
-import net.dv8tion.jda.api.JDABuilder;
-import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.hooks.EventListener;
+import net.dv8tion.jda.api.sharding.DefaultShardManagerBuilder;
+import net.dv8tion.jda.api.sharding.ShardManager;
+import net.dv8tion.jda.api.utils.ConcurrentSessionController;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.EnumSet;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public class GLSecurityBot {
 
     private static final Logger logger = LoggerFactory.getLogger(GLSecurityBot.class);
 
     public static void main(String[] args) {
+        long startupStart = System.nanoTime();
+
         // Carrega o token do bot de um arquivo .env
         Dotenv dotenv = null;
         try {
@@ -34,35 +60,130 @@ public class GLSecurityBot {
             System.exit(1);
         }
 
-        // Inicializa o DatabaseManager
-        DatabaseManager dbManager = new DatabaseManager();
+        // Configuração e matcher de palavras: o inicializador estático do BotConfig lê o arquivo e compila o matcher.
+        // É rápida e todas as outras etapas dependem dela, então roda antes; o arquivo é observado para recargas.
+        timed("configuração e matcher", BotConfig::getProfanityMatcher);
+        ConfigWatcher configWatcher = null;
+        try {
+            configWatcher = new ConfigWatcher(BotConfig.getConfigFile().toPath());
+            configWatcher.start();
+        } catch (IOException e) {
+            logger.warn("Não foi possível observar o arquivo de configuração; alterações exigirão reinício. Erro: {}", e.getMessage());
+        }
+        ConfigWatcher finalConfigWatcher = configWatcher;
+
+        // O banco (SessionFactory com a verificação do esquema) sobe em paralelo com o login no gateway
+        AtomicInteger startupThreads = new AtomicInteger();
+        ExecutorService startupExecutor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "startup-" + startupThreads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletableFuture<DatabaseManager> dbStage = CompletableFuture.supplyAsync(
+                () -> timed("banco de dados", DatabaseManager::new), startupExecutor);
+
+        // Intents e cache do gateway; o perfil LEAN guarda só o que a moderação usa
+        CacheProfile cacheProfile = CacheProfile.fromConfig(BotConfig.getCacheProfile());
+        logger.info("Perfil de cache do gateway: {} (intents {}).", cacheProfile, cacheProfile.getIntents());
 
-        // Carrega as configurações globais do bot
-        BotConfig.loadConfig();
+        // Cache de convites mantido pelos eventos do gateway (evita retrieveInvites() no caminho da mensagem)
+        InviteCache inviteCache = new InviteCache(BotConfig.getInviteRefreshMinutes());
 
-        // Define os intents necessários para o bot
-        EnumSet<GatewayIntent> intents = EnumSet.of(
-                GatewayIntent.GUILD_MESSAGES,          // Para receber eventos de mensagem em guilds
-                GatewayIntent.MESSAGE_CONTENT,         // **Essencial** para acessar o conteúdo das mensagens
-                GatewayIntent.GUILD_MEMBERS            // Para acessar informações de membros (permissões, etc.)
-        );
+        // Threads de moderação com ordem preservada por servidor, separadas por shard do gateway
+        boolean sharded = BotConfig.getShardCount() != 0;
+        ShardedModerationExecutor moderationExecutor = new ShardedModerationExecutor(
+                sharded ? BotConfig.getShardModerationThreads() : BotConfig.getModerationThreads(),
+                BotConfig.getModerationQueueCapacity(),
+                BotConfig.getModerationSubmitTimeoutMillis(),
+                BotMetrics.REGISTRY);
+
+        // Avisos de violação: canais de DM em cache e avisos repetidos agrupados durante rajadas
+        WarningDispatcher warningDispatcher = new WarningDispatcher(
+                BotConfig.getPrivateChannelCacheSize(),
+                BotConfig.getWarningCoalesceWindowMillis());
+
+        // Remoções agrupadas por canal (exclusão em massa durante raids)
+        DeletionScheduler deletionScheduler = new DeletionScheduler(BotConfig.getBulkDeleteWindowMillis());
+
+        // Listas de domínios para links; a lista grande de bloqueio é lida em segundo plano
+        DomainFilter domainFilter = new DomainFilter(BotConfig::getAllowedDomains, BotConfig::getBlockedDomains);
+        domainFilter.loadBlockListAsync(Paths.get(BotConfig.getBlockedDomainsFile()));
+
+        // Endpoint local de métricas no formato do Prometheus
+        MetricsServer metricsServer = null;
+        if (BotConfig.getMetricsPort() > 0) {
+            try {
+                metricsServer = new MetricsServer(BotMetrics.REGISTRY, BotConfig.getMetricsBindAddress(), BotConfig.getMetricsPort());
+                metricsServer.start();
+            } catch (IOException e) {
+                logger.error("Não foi possível abrir o endpoint de métricas na porta {}: {}", BotConfig.getMetricsPort(), e.getMessage());
+            }
+        }
+        MetricsServer finalMetricsServer = metricsServer;
+
+        // O gateway conecta com um listener provisório que guarda as mensagens até o banco ficar pronto; então a
+        // única instância do MessageListener (compartilhada por todos os shards) assume e recebe as guardadas
+        DeferredListener deferredListener = new DeferredListener(BotConfig.getModerationQueueCapacity());
+        CompletableFuture<MessageListener> listenerStage = dbStage.thenApply(dbManager -> {
+            MessageListener messageListener = new MessageListener(dbManager, inviteCache, moderationExecutor, warningDispatcher, deletionScheduler, domainFilter);
+            deferredListener.attach(messageListener);
+            logger.info("Inicialização: moderação ativa {} ms após o início.", millisSince(startupStart));
+            return messageListener;
+        });
+
+        // Retenção, métricas e painel dependem só do banco, não do gateway
+        CompletableFuture<PanelServer> panelStage = dbStage.thenApply(dbManager -> {
+            // Violações antigas vão para o arquivo morto compactado, em lotes pequenos
+            dbManager.getViolationArchiver().start(BotConfig.getRetentionIntervalMinutes());
+            registerComponentMetrics(dbManager, moderationExecutor, domainFilter);
+            return startPanel(dbManager);
+        });
+
+        // Shutdown hook registrado assim que o banco sobe, sem esperar o gateway: um SIGTERM durante o login dos shards
+        // (que pode levar minutos) ou uma falha do gateway ainda drena as filas e grava as violações pendentes
+        dbStage.thenAccept(dbManager -> Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            logger.info("Desligando o bot... Fechando recursos do banco de dados.");
+            logger.info("Estatísticas do cache de configurações: {}", dbManager.getSettingsCache());
+            if (finalConfigWatcher != null) finalConfigWatcher.stop();
+            if (finalMetricsServer != null) finalMetricsServer.stop();
+            PanelServer panelServer = completedOrNull(panelStage); // Pode ainda não ter subido
+            if (panelServer != null) panelServer.stop();
+            inviteCache.shutdown();
+            moderationExecutor.shutdown(5_000); // Termina as mensagens já enfileiradas
+            deletionScheduler.shutdown(); // Apaga as mensagens ainda aguardando o lote
+            warningDispatcher.shutdown(); // Envia os resumos de avisos pendentes
+            dbManager.getViolationArchiver().shutdown(); // Para a retenção entre dois lotes (ou antes de começar)
+            dbManager.stopViolationWriter(); // Grava as violações pendentes antes de fechar a SessionFactory
+            DatabaseManager.shutdown();
+        })));
 
         try {
-            JDA jda = JDABuilder.createDefault(botToken)
-                    .enableIntents(intents)
-                    .addEventListeners(new MessageListener(dbManager)) // Adiciona o listener de mensagens
-                    .build();
+            // Cada sessão pronta tem as configurações de todos os seus servidores carregadas em uma consulta
+            Consumer<JDA> onSessionReady = jda -> dbStage.thenAcceptAsync(dbManager -> preloadSettings(dbManager, jda), startupExecutor);
+            if (sharded) {
+                startShards(botToken, cacheProfile, deferredListener, inviteCache, onSessionReady);
+            } else {
+                JDA jda = timed("login no gateway", () -> cacheProfile.createBuilder(botToken)
+                        .addEventListeners(deferredListener) // Listener de mensagens (provisório até o banco ficar pronto)
+                        .addEventListeners(inviteCache)
+                        .build());
 
-            // Espera até que o bot esteja pronto (conectado ao Discord)
-            jda.awaitReady();
-            logger.info("Bot GL Security online e conectado ao Discord!");
+                // Espera até que o bot esteja pronto (conectado ao Discord)
+                long readyStart = System.nanoTime();
+                jda.awaitReady();
+                logger.info("Inicialização: etapa 'gateway pronto' concluída em {} ms ({} servidores).", millisSince(readyStart), jda.getGuildCache().size());
+                onSessionReady.accept(jda);
+            }
 
-            // Adiciona um shutdown hook para fechar a SessionFactory do Hibernate
-            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-                logger.info("Desligando o bot... Fechando recursos do banco de dados.");
-                DatabaseManager.shutdown();
-            }));
+            dbStage.join();
+            listenerStage.join();
+            panelStage.join();
+            logger.info("Bot GL Security online e conectado ao Discord! ({} ms após o início)", millisSince(startupStart));
 
+        } catch (CompletionException e) {
+            // O gateway pode já estar conectado; sem banco não há moderação, então o processo termina
+            logger.error("Falha ao inicializar o banco de dados: {}", e.getCause() != null ? e.getCause().getMessage() : e.getMessage(), e);
+            System.exit(1);
         } catch (InterruptedException e) {
             logger.error("O processo de conexão do bot foi interrompido: {}", e.getMessage(), e);
         } catch (Exception e) {
@@ -70,4 +191,139 @@ public class GLSecurityBot {
             logger.error("Verifique se o token está correto e se as Intents Privilegiadas (Message Content Intent, Server Members Intent) estão ativadas no Portal do Desenvolvedor do Discord.");
         }
     }
+
+    // Painel de controle (index.html) e a API que ele consome; null se desativado ou se a porta não abrir
+    private static PanelServer startPanel(DatabaseManager dbManager) {
+        if (BotConfig.getPanelPort() <= 0) {
+            return null;
+        }
+        try {
+            PanelServer panelServer = new PanelServer(dbManager, BotConfig.getPanelBindAddress(), BotConfig.getPanelPort(),
+                    BotConfig.getPanelThreads(), BotConfig.getPanelToken());
+            panelServer.start();
+            return panelServer;
+        } catch (IOException e) {
+            logger.error("Não foi possível abrir o painel de controle na porta {}: {}", BotConfig.getPanelPort(), e.getMessage());
+            return null;
+        }
+    }
+
+    // Carrega em lote as configurações dos servidores de uma sessão que acabou de ficar pronta
+    private static void preloadSettings(DatabaseManager dbManager, JDA jda) {
+        long start = System.nanoTime();
+        List<String> serverIds = new ArrayList<>((int) jda.getGuildCache().size());
+        jda.getGuildCache().forEach(guild -> serverIds.add(guild.getId()));
+        int loaded = dbManager.preloadServerSettings(serverIds);
+        logger.info("Inicialização: configurações de {} dos {} servidores do shard {} pré-carregadas em {} ms.",
+                loaded, serverIds.size(), jda.getShardInfo().getShardId(), millisSince(start));
+    }
+
+    // O resultado de uma etapa já concluída com sucesso, ou null se ela ainda não terminou ou falhou
+    private static <T> T completedOrNull(CompletableFuture<T> stage) {
+        return stage.isDone() && !stage.isCompletedExceptionally() ? stage.join() : null;
+    }
+
+    // Executa uma etapa da inicialização e registra quanto ela levou
+    private static <T> T timed(String stage, Supplier<T> step) {
+        long start = System.nanoTime();
+        T result = step.get();
+        logger.info("Inicialização: etapa '{}' concluída em {} ms.", stage, millisSince(start));
+        return result;
+    }
+
+    private static long millisSince(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * Conecta os shards configurados ({@code shard_count}, {@code shard_first}..{@code shard_last}) e espera todos
+     * ficarem prontos. O ConcurrentSessionController identifica os shards em paralelo, em grupos do tamanho do
+     * {@code max_concurrency} informado pelo Discord (um grupo a cada 5 segundos), em vez de um shard por vez.
+     * {@code onShardReady} é chamado para cada shard assim que ele fica pronto, sem esperar os demais.
+     */
+    private static void startShards(String botToken, CacheProfile cacheProfile, EventListener messageListener,
+                                    InviteCache inviteCache, Consumer<JDA> onShardReady) throws InterruptedException {
+        DefaultShardManagerBuilder builder = cacheProfile.createShardManagerBuilder(botToken)
+                .setShardsTotal(BotConfig.getShardCount()) // -1: quantidade recomendada pelo Discord
+                .setSessionController(new ConcurrentSessionController())
+                .addEventListeners(messageListener, inviteCache);
+        if (BotConfig.getShardLast() >= 0) {
+            builder.setShards(BotConfig.getShardFirst(), BotConfig.getShardLast());
+        } else if (BotConfig.getShardFirst() > 0) {
+            builder.setShards(BotConfig.getShardFirst(), BotConfig.getShardCount() - 1);
+        }
+
+        long start = System.nanoTime();
+        ShardManager shardManager = timed("login no gateway", builder::build);
+        int total = shardManager.getShardsTotal();
+        int first = BotConfig.getShardFirst();
+        int last = BotConfig.getShardLast() >= 0 ? BotConfig.getShardLast() : total - 1;
+        logger.info("Iniciando os shards {}..{} de {} ({} neste processo).", first, last, total, last - first + 1);
+        registerShardMetrics(shardManager, first, last);
+
+        // Os shards são criados aos poucos pela fila do ShardManager; espera cada um existir e ficar pronto
+        for (int shardId = first; shardId <= last; shardId++) {
+            JDA shard;
+            while ((shard = shardManager.getShardById(shardId)) == null) {
+                Thread.sleep(100);
+            }
+            shard.awaitReady();
+            onShardReady.accept(shard);
+        }
+        logger.info("Inicialização: etapa 'gateway pronto' concluída em {} ms ({} shards).", millisSince(start), shardManager.getShardsRunning());
+    }
+
+    // Estado de cada shard lido no momento da coleta; -1 enquanto o shard ainda não foi criado
+    private static void registerShardMetrics(ShardManager shardManager, int first, int last) {
+        MetricsRegistry registry = BotMetrics.REGISTRY;
+        for (int shardId = first; shardId <= last; shardId++) {
+            int id = shardId;
+            String label = Integer.toString(id);
+            registry.gauge("glsecurity_shard_connected", "1 se a sessão do shard está conectada ao gateway.", "gauge", () -> {
+                JDA shard = shardManager.getShardById(id);
+                return shard != null && shard.getStatus() == JDA.Status.CONNECTED ? 1 : 0;
+            }, "shard", label);
+            registry.gauge("glsecurity_shard_gateway_ping_milliseconds", "Latência do heartbeat do gateway por shard.", "gauge", () -> {
+                JDA shard = shardManager.getShardById(id);
+                return shard != null ? shard.getGatewayPing() : -1;
+            }, "shard", label);
+            registry.gauge("glsecurity_shard_guilds", "Servidores atendidos por shard.", "gauge", () -> {
+                JDA shard = shardManager.getShardById(id);
+                return shard != null ? shard.getGuildCache().size() : -1;
+            }, "shard", label);
+        }
+    }
+
+    // Exporta os contadores que os componentes já mantêm, lidos apenas no momento da coleta
+    private static void registerComponentMetrics(DatabaseManager dbManager, ShardedModerationExecutor moderationExecutor, DomainFilter domainFilter) {
+        MetricsRegistry registry = BotMetrics.REGISTRY;
+        registry.gauge("glsecurity_settings_cache_size", "Servidores com configurações em cache.", "gauge",
+                () -> dbManager.getSettingsCache().size());
+        registry.gauge("glsecurity_settings_cache_hits_total", "Acertos do cache de configurações.", "counter",
+                () -> dbManager.getSettingsCache().hitCount());
+        registry.gauge("glsecurity_settings_cache_misses_total", "Falhas do cache de configurações.", "counter",
+                () -> dbManager.getSettingsCache().missCount());
+        registry.gauge("glsecurity_settings_cache_evictions_total", "Remoções do cache de configurações.", "counter",
+                () -> dbManager.getSettingsCache().evictionCount());
+        registry.gauge("glsecurity_guild_word_filters", "Servidores com dicionário próprio compilado em memória.", "gauge",
+                () -> dbManager.getWordFilters().size());
+        registry.gauge("glsecurity_blocked_domains_loaded", "Domínios carregados do arquivo de bloqueio.", "gauge",
+                domainFilter::getBlockListSize);
+        registry.gauge("glsecurity_moderation_queue_depth", "Mensagens aguardando moderação.", "gauge",
+                moderationExecutor::getQueueDepth);
+        registry.gauge("glsecurity_moderation_rejected_total", "Mensagens ignoradas por fila de moderação cheia.", "counter",
+                moderationExecutor::getRejected);
+        registry.gauge("glsecurity_violation_queue_depth", "Violações aguardando gravação.", "gauge",
+                () -> dbManager.getViolationWriter().queueSize());
+        registry.gauge("glsecurity_violations_written_total", "Violações gravadas no banco.", "counter",
+                () -> dbManager.getViolationWriter().getWritten());
+        registry.gauge("glsecurity_violation_batches_total", "Lotes de violações gravados.", "counter",
+                () -> dbManager.getViolationWriter().getBatches());
+        registry.gauge("glsecurity_violations_dropped_total", "Violações descartadas por fila cheia.", "counter",
+                () -> dbManager.getViolationWriter().getDropped());
+        registry.gauge("glsecurity_violations_spilled_total", "Violações desviadas para o arquivo de transbordo.", "counter",
+                () -> dbManager.getViolationWriter().getSpilled());
+        registry.gauge("glsecurity_violations_stored", "Violações registradas no banco (contadores incrementais).", "gauge",
+                dbManager::getTotalViolationsCount);
+    }
 }
@@ -0,0 +1,91 @@
+package com.glsecurity.bot.filter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Registro dos dicionários de cada servidor ({@link WordFilter}), compilados sob demanda e guardados em cache.
+ *
+ * <p>Servidores sem adições nem isenções (a grande maioria) compartilham um único filtro com o dicionário
+ * global e não ocupam entrada no mapa. Atualizações seguem cópia na escrita: um filtro novo é compilado fora
+ * do caminho da mensagem e publicado com um {@code put}, então a moderação só faz uma leitura do mapa e uma
+ * comparação de referências, sem travas. Se o dicionário global for recompilado, cada filtro é refeito na
+ * próxima consulta reaproveitando o matcher do servidor (só a referência ao global muda).</p>
+ */
+public class GuildWordFilters {
+
+    private final Supplier<ProfanityMatcher> globalMatcher;
+    private final Map<String, WordFilter> filters = new ConcurrentHashMap<>();
+    private volatile WordFilter globalOnly;
+
+    /**
+     * @param globalMatcher Fonte do matcher global atual (ex.: {@code BotConfig::getProfanityMatcher}).
+     */
+    public GuildWordFilters(Supplier<ProfanityMatcher> globalMatcher) {
+        this.globalMatcher = globalMatcher;
+    }
+
+    /**
+     * Retorna o filtro do servidor para as listas informadas, compilando-o se ainda não existir ou estiver desatualizado.
+     * @param serverId O ID do servidor.
+     * @param customWords Palavras adicionadas pelo servidor.
+     * @param exemptWords Palavras globais isentas no servidor.
+     * @return O filtro a usar na análise da mensagem.
+     */
+    public WordFilter get(String serverId, List<String> customWords, List<String> exemptWords) {
+        ProfanityMatcher global = globalMatcher.get();
+        if (customWords.isEmpty() && exemptWords.isEmpty()) {
+            return globalOnly(global);
+        }
+        WordFilter filter = filters.get(serverId);
+        if (filter != null && filter.isBuiltFrom(global, customWords, exemptWords)) {
+            return filter;
+        }
+        return rebuild(serverId, filter, global, customWords, exemptWords);
+    }
+
+    /**
+     * Compila e publica o filtro de um servidor cujas listas mudaram, antes que a próxima mensagem precise dele.
+     */
+    public void refresh(String serverId, List<String> customWords, List<String> exemptWords) {
+        if (customWords.isEmpty() && exemptWords.isEmpty()) {
+            filters.remove(serverId);
+            return;
+        }
+        rebuild(serverId, filters.get(serverId), globalMatcher.get(), customWords, exemptWords);
+    }
+
+    /**
+     * Descarta o filtro de um servidor (ex.: o bot saiu dele).
+     */
+    public void invalidate(String serverId) {
+        filters.remove(serverId);
+    }
+
+    private WordFilter rebuild(String serverId, WordFilter previous, ProfanityMatcher global,
+                               List<String> customWords, List<String> exemptWords) {
+        WordFilter rebuilt = previous != null && previous.hasSameWords(customWords, exemptWords)
+                ? previous.rebind(global, customWords, exemptWords) // Ex.: configurações recarregadas do banco
+                : WordFilter.compile(global, customWords, exemptWords);
+        filters.put(serverId, rebuilt); // Corridas publicam filtros equivalentes; o último vence
+        return rebuilt;
+    }
+
+    private WordFilter globalOnly(ProfanityMatcher global) {
+        WordFilter filter = globalOnly;
+        if (filter == null || filter.global() != global) {
+            filter = WordFilter.of(global);
+            globalOnly = filter;
+        }
+        return filter;
+    }
+
+    /**
+     * @return Número de servidores com dicionário próprio em memória.
+     */
+    public int size() {
+        return filters.size();
+    }
+}
@@ -0,0 +1,208 @@
+package com.glsecurity.bot.listener;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Invite;
+import net.dv8tion.jda.api.events.guild.GuildJoinEvent;
+import net.dv8tion.jda.api.events.guild.GuildLeaveEvent;
+import net.dv8tion.jda.api.events.guild.GuildReadyEvent;
+import net.dv8tion.jda.api.events.guild.invite.GuildInviteCreateEvent;
+import net.dv8tion.jda.api.events.guild.invite.GuildInviteDeleteEvent;
+import net.dv8tion.jda.api.events.session.ReadyEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.sharding.ShardManager;
+import net.dv8tion.jda.api.utils.cache.SnowflakeCacheView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Mantém em memória os códigos de convite de cada servidor, para que a verificação
+ * "o convite é do próprio servidor?" seja uma consulta O(1) sem chamadas REST no caminho da mensagem.
+ *
+ * <p>Os convites são carregados quando o servidor fica pronto ou quando o bot entra nele, e mantidos
+ * atualizados pelos eventos de criação/remoção do gateway (intent GUILD_INVITES). Uma atualização
+ * periódica em segundo plano corrige eventos perdidos (reconexões, convites expirados).</p>
+ *
+ * <p>A lista devolvida pelo REST reflete o momento em que a requisição foi atendida, então os eventos que chegam
+ * enquanto ela está em andamento são anotados e reaplicados sobre a lista nova; sem isso, um convite criado
+ * nesse intervalo sumiria do conjunto e seria tratado como externo até a próxima atualização. As alterações
+ * do conjunto de um servidor acontecem dentro do {@code compute} do mapa, atômicas em relação aos eventos.</p>
+ */
+public class InviteCache extends ListenerAdapter {
+
+    private static final Logger logger = LoggerFactory.getLogger(InviteCache.class);
+
+    private final Map<Long, Set<String>> invitesByGuild = new ConcurrentHashMap<>();
+    private final Map<Long, PendingLoad> pendingLoads = new ConcurrentHashMap<>();
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+    private final long refreshIntervalMinutes;
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "invite-cache-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Convites criados e removidos enquanto a lista de um servidor está sendo buscada
+    private static final class PendingLoad {
+        private final Set<String> created = ConcurrentHashMap.newKeySet();
+        private final Set<String> deleted = ConcurrentHashMap.newKeySet();
+    }
+
+    public InviteCache(long refreshIntervalMinutes) {
+        this.refreshIntervalMinutes = refreshIntervalMinutes;
+    }
+
+    /**
+     * Verifica se o código pertence a um convite do próprio servidor (incluindo a URL personalizada).
+     * Se os convites do servidor ainda não foram carregados, o convite é tratado como externo.
+     * @param guild O servidor onde a mensagem foi enviada.
+     * @param code O código do convite, com maiúsculas/minúsculas originais.
+     * @return true se o convite é do próprio servidor.
+     */
+    public boolean isOwnInvite(Guild guild, String code) {
+        if (code.equals(guild.getVanityCode())) {
+            return true;
+        }
+        Set<String> codes = invitesByGuild.get(guild.getIdLong());
+        if (codes == null) {
+            // Reserva a entrada para disparar um único carregamento mesmo com várias mensagens seguidas
+            if (invitesByGuild.putIfAbsent(guild.getIdLong(), ConcurrentHashMap.newKeySet()) == null) {
+                logger.debug("Convites do servidor {} ainda não carregados. Carregando em segundo plano.", guild.getId());
+                load(guild);
+            }
+            return false;
+        }
+        return codes.contains(code);
+    }
+
+    @Override
+    public void onReady(ReadyEvent event) {
+        // Com sharding cada shard dispara o seu ReadyEvent; uma única atualização percorre os servidores de todos
+        if (!refreshScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        JDA jda = event.getJDA();
+        ShardManager shardManager = jda.getShardManager();
+        Supplier<SnowflakeCacheView<Guild>> guilds = shardManager != null ? shardManager::getGuildCache : jda::getGuildCache;
+        refresher.scheduleWithFixedDelay(() -> refreshAll(guilds),
+                refreshIntervalMinutes, refreshIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public void onGuildReady(GuildReadyEvent event) {
+        load(event.getGuild());
+    }
+
+    @Override
+    public void onGuildJoin(GuildJoinEvent event) {
+        load(event.getGuild());
+    }
+
+    @Override
+    public void onGuildLeave(GuildLeaveEvent event) {
+        long guildId = event.getGuild().getIdLong();
+        invitesByGuild.compute(guildId, (id, codes) -> {
+            pendingLoads.remove(id); // Uma busca ainda em andamento não recria a entrada
+            return null;
+        });
+    }
+
+    @Override
+    public void onGuildInviteCreate(GuildInviteCreateEvent event) {
+        String code = event.getCode();
+        invitesByGuild.compute(event.getGuild().getIdLong(), (id, codes) -> {
+            if (codes == null) {
+                codes = ConcurrentHashMap.newKeySet();
+            }
+            codes.add(code);
+            PendingLoad pending = pendingLoads.get(id);
+            if (pending != null) {
+                pending.deleted.remove(code);
+                pending.created.add(code);
+            }
+            return codes;
+        });
+    }
+
+    @Override
+    public void onGuildInviteDelete(GuildInviteDeleteEvent event) {
+        String code = event.getCode();
+        invitesByGuild.computeIfPresent(event.getGuild().getIdLong(), (id, codes) -> {
+            codes.remove(code);
+            PendingLoad pending = pendingLoads.get(id);
+            if (pending != null) {
+                pending.created.remove(code);
+                pending.deleted.add(code);
+            }
+            return codes;
+        });
+    }
+
+    // Recarrega todos os servidores; a fila de requisições do JDA respeita os limites de taxa
+    private void refreshAll(Supplier<SnowflakeCacheView<Guild>> guilds) {
+        try {
+            SnowflakeCacheView<Guild> cache = guilds.get();
+            cache.forEach(this::load);
+            logger.debug("Atualização periódica de convites agendada para {} servidores.", cache.size());
+        } catch (Exception e) {
+            logger.error("Erro na atualização periódica de convites: {}", e.getMessage(), e);
+        }
+    }
+
+    // Busca os convites de forma assíncrona e substitui o conjunto do servidor, reaplicando os eventos do intervalo
+    private void load(Guild guild) {
+        long guildId = guild.getIdLong();
+        if (!guild.getSelfMember().hasPermission(Permission.MANAGE_SERVER)) {
+            logger.warn("Sem permissão MANAGE_SERVER no servidor {}. Convites do próprio servidor não serão reconhecidos.", guild.getId());
+            invitesByGuild.putIfAbsent(guildId, ConcurrentHashMap.newKeySet());
+            return;
+        }
+        PendingLoad pending = new PendingLoad();
+        if (pendingLoads.putIfAbsent(guildId, pending) != null) {
+            return; // Já há uma busca em andamento para o servidor
+        }
+        try {
+            guild.retrieveInvites().queue(
+                    invites -> {
+                        Set<String> fetched = ConcurrentHashMap.newKeySet();
+                        for (Invite invite : invites) {
+                            fetched.add(invite.getCode());
+                        }
+                        invitesByGuild.compute(guildId, (id, codes) -> {
+                            if (!pendingLoads.remove(id, pending)) {
+                                return codes; // O bot saiu do servidor durante a busca
+                            }
+                            fetched.addAll(pending.created);
+                            fetched.removeAll(pending.deleted);
+                            return fetched;
+                        });
+                        logger.debug("{} convites carregados para o servidor {}.", fetched.size(), guild.getId());
+                    },
+                    error -> {
+                        pendingLoads.remove(guildId, pending);
+                        logger.error("Falha ao carregar convites do servidor {}: {}", guild.getId(), error.getMessage());
+                    }
+            );
+        } catch (RuntimeException e) {
+            pendingLoads.remove(guildId, pending);
+            logger.error("Falha ao carregar convites do servidor {}: {}", guild.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Interrompe a atualização periódica.
+     */
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+}
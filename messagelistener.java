@@ -2,34 +2,50 @@ package com.glsecurity.bot.listener;
 
 import com.glsecurity.bot.config.BotConfig;
 import com.glsecurity.bot.dao.DatabaseManager;
+import com.glsecurity.bot.filter.DomainFilter;
+import com.glsecurity.bot.filter.FloodDetector;
+import com.glsecurity.bot.filter.RaidDetector;
+import com.glsecurity.bot.metrics.BotMetrics;
 import com.glsecurity.bot.model.ServerSettings;
 import com.glsecurity.bot.model.Violation;
 import net.dv8tion.jda.api.Permission;
 import net.dv8tion.jda.api.entities.Message;
-import net.dv8tion.jda.api.entities.channel.ChannelType;
-import net.dv8tion.jda.api.entities.channel.middleman.GuildMessageChannel;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.utils.TimeUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Objects;
-import java.util.concurrent.TimeUnit;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
+/**
+ * Modera as mensagens dos servidores. Uma única instância é registrada em todos os shards: o estado
+ * compartilhado (detectores de flood e raid, dicionários, caches do DatabaseManager) é seguro entre threads,
+ * e cada mensagem vai para o executor de moderação do shard que a recebeu.
+ */
 public class MessageListener extends ListenerAdapter {
 
     private static final Logger logger = LoggerFactory.getLogger(MessageListener.class);
     private final DatabaseManager dbManager;
+    private final InviteCache inviteCache;
+    private final ShardedModerationExecutor moderationExecutor;
+    private final WarningDispatcher warningDispatcher;
+    private final DeletionScheduler deletionScheduler;
 
-    // Padrão para convites do Discord (discord.gg, discord.com/invite, discordapp.com/invite)
-    private static final Pattern DISCORD_INVITE_PATTERN = Pattern.compile(
-            "(?:https?://)?(?:www\\.)?(?:discord\\.(?:gg|io|me|li)|discordapp\\.com/invite|discord\\.com/invite)/([a-zA-Z0-9]+)"
-    );
+    private final ModerationPolicy moderationPolicy;
+    private final FloodDetector floodDetector = new FloodDetector(BotConfig.getFloodTableCapacity());
+    private final RaidDetector raidDetector = new RaidDetector();
 
-    public MessageListener(DatabaseManager dbManager) {
+    public MessageListener(DatabaseManager dbManager, InviteCache inviteCache, ShardedModerationExecutor moderationExecutor,
+                           WarningDispatcher warningDispatcher, DeletionScheduler deletionScheduler, DomainFilter domainFilter) {
         this.dbManager = dbManager;
+        this.inviteCache = inviteCache;
+        this.moderationExecutor = moderationExecutor;
+        this.warningDispatcher = warningDispatcher;
+        this.deletionScheduler = deletionScheduler;
+        this.moderationPolicy = new ModerationPolicy(dbManager.getWordFilters(), domainFilter); // Dicionários atualizados pelo DatabaseManager
+        BotMetrics.REGISTRY.gauge("glsecurity_flood_table_evictions_total",
+                "Entradas ativas da tabela de flood substituídas por falta de espaço.", "counter", floodDetector::getEvictions);
     }
 
     @Override
@@ -39,8 +55,16 @@ public class MessageListener extends ListenerAdapter {
             return;
         }
 
+        BotMetrics.MESSAGES_SEEN.increment();
+
+        // A moderação roda fora da thread de eventos do JDA, mantendo a ordem das mensagens de cada servidor
+        // (sem sharding, getShardInfo() é ShardInfo.SINGLE, o shard 0)
+        moderationExecutor.submit(event.getJDA().getShardInfo().getShardId(), event.getGuild().getIdLong(), () -> moderate(event));
+    }
+
+    private void moderate(MessageReceivedEvent event) {
         Message message = event.getMessage();
-        String content = message.getContentRaw().toLowerCase(); // Conteúdo da mensagem em minúsculas
+        String content = message.getContentRaw(); // Conteúdo bruto; o scanner cuida de maiúsculas/minúsculas
         String serverId = event.getGuild().getId();
         String serverName = event.getGuild().getName();
         String userId = event.getAuthor().getId();
@@ -53,116 +77,80 @@ public class MessageListener extends ListenerAdapter {
 
         // Se o autor da mensagem for um administrador do servidor, ignorar a moderação para ele
         // `MANAGE_SERVER` é uma boa permissão para identificar administradores ou moderadores
-        if (event.getMember() != null && event.getMember().hasPermission(Permission.MANAGE_SERVER)) {
+        if (event.getMember() != null && RolePermissions.hasGuildPermission(event.getMember(), Permission.MANAGE_SERVER)) {
             logger.debug("Usuário {} é administrador. Ignorando moderação.", userName);
             return;
         }
 
-        // --- Verificação de Palavras Ofensivas ---
-        if (serverSettings.isBlockProfaneWords()) {
-            for (String word : BotConfig.getProfaneWords()) { // Usar palavras do BotConfig.java (config global)
-                if (content.contains(word)) {
-                    logger.info("Palavra ofensiva detectada: '{}' na mensagem de {}.", word, userName);
-                    handleViolation(message, serverSettings,
-                            "PROFANE_WORD", "Uso de palavra ofensiva: '" + word + "'", message.getContentDisplay());
-                    return; // Uma violação por mensagem é suficiente
-                }
-            }
+        // --- Verificação de Flood (conta todas as mensagens, inclusive as limpas) ---
+        if (serverSettings.isBlockFlood() && isFlooding(message, serverSettings)) {
+            int windowSeconds = serverSettings.getFloodWindowSeconds();
+            logger.info("Flood detectado: {} enviou mais de {} mensagens em {}s.", userName, serverSettings.getFloodMaxMessages(), windowSeconds);
+            BotMetrics.violationDetected("FLOOD");
+            handleViolation(message, serverSettings, "FLOOD",
+                    "Envio de mensagens em excesso (limite de " + serverSettings.getFloodMaxMessages() + " em " + windowSeconds + "s)",
+                    message.getContentDisplay(), System.nanoTime());
+            return;
         }
 
-        // --- Verificação de Links ---
-        if (serverSettings.isBlockLinks()) {
-            // Expressão regular simples para URLs (pode ser mais complexa se necessário)
-            String urlRegex = "(http|https)://[a-zA-Z0-9\\-.]+\\.[a-zA-Z]{2,3}(/\\S*)?";
-            if (Pattern.compile(urlRegex).matcher(content).find()) {
-                logger.info("Link detectado na mensagem de {}.", userName);
-                handleViolation(message, serverSettings,
-                        "LINK", "Envio de link não permitido", message.getContentDisplay());
+        // --- Verificação de Raid (o mesmo texto enviado por várias contas) ---
+        if (serverSettings.isBlockRaids()) {
+            int senders = raidDetector.record(event.getGuild().getIdLong(), event.getAuthor().getIdLong(), content,
+                    sentAtMillis(message), serverSettings.getRaidWindowSeconds() * 1_000L);
+            if (senders >= serverSettings.getRaidMinUsers()) {
+                logger.info("Raid detectado: mensagem de {} repetida por ~{} usuários em {}s.", userName, senders, serverSettings.getRaidWindowSeconds());
+                BotMetrics.violationDetected("RAID");
+                handleViolation(message, serverSettings, "RAID",
+                        "Mensagem repetida por várias contas (possível raid)", message.getContentDisplay(), System.nanoTime());
                 return;
             }
         }
 
-        // --- Verificação de Convites do Discord ---
-        if (serverSettings.isBlockInvites()) {
-            Matcher matcher = DISCORD_INVITE_PATTERN.matcher(content);
-            if (matcher.find()) {
-                String inviteCode = matcher.group(1);
-                // Opcional: verificar se o convite é para o próprio servidor (permitir nesse caso)
-                if (!event.getGuild().retrieveInvites().complete().stream()
-                        .anyMatch(invite -> invite.getCode().equals(inviteCode))) {
-                    logger.info("Convite do Discord detectado: '{}' na mensagem de {}.", inviteCode, userName);
-                    handleViolation(message, serverSettings,
-                            "INVITE", "Envio de convite do Discord não permitido", message.getContentDisplay());
-                    return;
-                }
-            }
+        // Convites do próprio servidor são permitidos (consulta em memória, sem chamada REST)
+        long scanStart = System.nanoTime();
+        ModerationPolicy.Decision decision = moderationPolicy.evaluate(content, serverSettings,
+                inviteCode -> inviteCache.isOwnInvite(event.getGuild(), inviteCode));
+        long detectedAt = System.nanoTime();
+        BotMetrics.SCAN_LATENCY.record(detectedAt - scanStart);
+        if (decision == null) {
+            return;
         }
-    }
+        BotMetrics.violationDetected(decision.getViolationType());
 
-    private void handleViolation(Message message, ServerSettings serverSettings, String violationType, String reason, String messageContent) {
-        // Deletar a mensagem ofensiva
-        message.delete().queue(
-                success -> logger.info("Mensagem deletada de {}: '{}'.", message.getAuthor().getName(), message.getContentDisplay()),
-                error -> logger.error("Falha ao deletar mensagem de {}: {}.", message.getAuthor().getName(), error.getMessage())
-        );
-
-        // Notificar o usuário
-        String warningMessage = String.format("❌ **GL Security Bot** ❌\n" +
-                "Sua mensagem foi deletada no servidor **%s** devido a: **%s**.",
-                message.getGuild().getName(), reason);
-
-        switch (serverSettings.getWarningType().toLowerCase()) {
-            case "dm":
-                message.getAuthor().openPrivateChannel().queue(
-                        channel -> channel.sendMessage(warningMessage).queue(
-                                success -> logger.info("Aviso enviado por DM para {}.", message.getAuthor().getName()),
-                                error -> logger.error("Falha ao enviar aviso por DM para {}: {}.", message.getAuthor().getName(), error.getMessage())
-                        )
-                );
+        switch (decision.getViolationType()) {
+            case "PROFANE_WORD":
+                logger.info("Palavra ofensiva detectada: '{}' (posição {}) na mensagem de {}.", decision.getDetail(), decision.getPosition(), userName);
                 break;
-            case "public":
-                if (message.getChannelType() == ChannelType.TEXT || message.getChannelType() == ChannelType.NEWS) {
-                    GuildMessageChannel guildChannel = (GuildMessageChannel) message.getChannel();
-                    guildChannel.sendMessage(String.format("%s, %s", message.getAuthor().getAsMention(), warningMessage)).queue(
-                            msg -> {
-                                logger.info("Aviso enviado publicamente no canal para {}.", message.getAuthor().getName());
-                                if (serverSettings.isAutoDeleteWarnings()) {
-                                    msg.delete().queueAfter(serverSettings.getWarningDeleteDelay(), TimeUnit.SECONDS,
-                                            s -> logger.info("Aviso público deletado automaticamente."),
-                                            e -> logger.error("Falha ao deletar aviso público automaticamente: {}", e.getMessage())
-                                    );
-                                }
-                            },
-                            error -> logger.error("Falha ao enviar aviso público para {}: {}.", message.getAuthor().getName(), error.getMessage())
-                    );
-                }
+            case "LINK":
+                logger.info("Link detectado na mensagem de {} (host '{}').", userName, decision.getDetail());
                 break;
-            case "both":
-                // Enviar DM
-                message.getAuthor().openPrivateChannel().queue(
-                        channel -> channel.sendMessage(warningMessage).queue(
-                                success -> logger.info("Aviso enviado por DM para {}.", message.getAuthor().getName()),
-                                error -> logger.error("Falha ao enviar aviso por DM para {}: {}.", message.getAuthor().getName(), error.getMessage())
-                        )
-                );
-                // Enviar público (se o canal for de texto)
-                if (message.getChannelType() == ChannelType.TEXT || message.getChannelType() == ChannelType.NEWS) {
-                    GuildMessageChannel guildChannel = (GuildMessageChannel) message.getChannel();
-                    guildChannel.sendMessage(String.format("%s, %s", message.getAuthor().getAsMention(), warningMessage)).queue(
-                            msg -> {
-                                logger.info("Aviso enviado publicamente no canal para {}.", message.getAuthor().getName());
-                                if (serverSettings.isAutoDeleteWarnings()) {
-                                    msg.delete().queueAfter(serverSettings.getWarningDeleteDelay(), TimeUnit.SECONDS,
-                                            s -> logger.info("Aviso público deletado automaticamente."),
-                                            e -> logger.error("Falha ao deletar aviso público automaticamente: {}", e.getMessage())
-                                    );
-                                }
-                            },
-                            error -> logger.error("Falha ao enviar aviso público para {}: {}.", message.getAuthor().getName(), error.getMessage())
-                    );
-                }
+            case "INVITE":
+                logger.info("Convite do Discord detectado: '{}' na mensagem de {}.", decision.getDetail(), userName);
                 break;
         }
+        handleViolation(message, serverSettings,
+                decision.getViolationType(), decision.getReason(), message.getContentDisplay(), detectedAt);
+    }
+
+    // Conta a mensagem na janela deslizante do autor
+    private boolean isFlooding(Message message, ServerSettings serverSettings) {
+        int recent = floodDetector.record(message.getGuild().getIdLong(), message.getAuthor().getIdLong(),
+                sentAtMillis(message), serverSettings.getFloodWindowSeconds() * 1_000L);
+        return recent > serverSettings.getFloodMaxMessages();
+    }
+
+    // Horário de envio embutido no snowflake da mensagem (não depende da espera na fila de moderação)
+    private static long sentAtMillis(Message message) {
+        return (message.getIdLong() >>> TimeUtil.TIMESTAMP_OFFSET) + TimeUtil.DISCORD_EPOCH;
+    }
+
+    private void handleViolation(Message message, ServerSettings serverSettings, String violationType, String reason,
+                                 String messageContent, long detectedAt) {
+        // Deletar a mensagem ofensiva (agrupada por canal para usar a exclusão em massa durante rajadas)
+        deletionScheduler.delete(message, detectedAt);
+
+        // Notificar o usuário (canais privados em cache e avisos repetidos agrupados)
+        warningDispatcher.warn(message, serverSettings, reason);
 
         // Registrar a violação no banco de dados se a opção estiver ativada
         if (serverSettings.isLogViolations()) {
@@ -0,0 +1,142 @@
+package com.glsecurity.bot.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Registro das métricas do bot e exportação no formato de texto do Prometheus (versão 0.0.4).
+ *
+ * <p>Contadores e histogramas são criados uma única vez, na inicialização, e guardados em campos; o caminho
+ * quente só chama {@link Counter#increment()} ou {@link LatencyHistogram#record(long)}. Os histogramas são
+ * exportados como {@code summary} (quantis 0.5, 0.9, 0.99 e 0.999 desde o início, mais _sum e _count),
+ * com valores em segundos.</p>
+ *
+ * <p>Os rótulos são passados como pares nome/valor: {@code counter("x_total", "...", "type", "LINK")}.</p>
+ */
+public class MetricsRegistry {
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final String[] QUANTILE_LABELS = {"0.5", "0.9", "0.99", "0.999"};
+
+    private final Map<String, Family> families = new LinkedHashMap<>();
+
+    private static final class Family {
+        private final String name;
+        private final String help;
+        private final String type;
+        private final List<Child> children = new ArrayList<>();
+
+        private Family(String name, String help, String type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    private static final class Child {
+        private final String labels; // Já formatados: k1="v1",k2="v2"
+        private final Object metric;
+
+        private Child(String labels, Object metric) {
+            this.labels = labels;
+            this.metric = metric;
+        }
+    }
+
+    public synchronized Counter counter(String name, String help, String... labels) {
+        return register(name, help, "counter", labels, new Counter(), Counter.class);
+    }
+
+    public synchronized LatencyHistogram histogram(String name, String help, String... labels) {
+        return register(name, help, "summary", labels, new LatencyHistogram(), LatencyHistogram.class);
+    }
+
+    /**
+     * Registra um valor lido no momento da coleta (tamanho de fila, contadores de outros componentes...).
+     * @param type "gauge" ou "counter".
+     */
+    public synchronized void gauge(String name, String help, String type, DoubleSupplier supplier, String... labels) {
+        register(name, help, type, labels, supplier, DoubleSupplier.class);
+    }
+
+    // Registrar duas vezes o mesmo nome e rótulos retorna a métrica existente
+    private <T> T register(String name, String help, String type, String[] labels, T metric, Class<T> metricClass) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Rótulos devem ser pares nome/valor: " + name);
+        }
+        Family family = families.computeIfAbsent(name, n -> new Family(n, help, type));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("Métrica " + name + " já registrada como " + family.type);
+        }
+        String formatted = formatLabels(labels);
+        for (Child child : family.children) {
+            if (child.labels.equals(formatted) && metricClass.isInstance(child.metric)) {
+                return metricClass.cast(child.metric);
+            }
+        }
+        family.children.add(new Child(formatted, metric));
+        return metric;
+    }
+
+    private static String formatLabels(String[] labels) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) sb.append(',');
+            sb.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+        }
+        return sb.toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * @return Todas as métricas no formato de texto do Prometheus.
+     */
+    public synchronized String scrape() {
+        StringBuilder sb = new StringBuilder(4_096);
+        for (Family family : families.values()) {
+            sb.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            sb.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+            for (Child child : family.children) {
+                if (child.metric instanceof Counter) {
+                    sample(sb, family.name, child.labels, null, ((Counter) child.metric).get());
+                } else if (child.metric instanceof DoubleSupplier) {
+                    sample(sb, family.name, child.labels, null, ((DoubleSupplier) child.metric).getAsDouble());
+                } else {
+                    LatencyHistogram histogram = (LatencyHistogram) child.metric;
+                    long[] values = histogram.quantiles(QUANTILES);
+                    for (int i = 0; i < values.length; i++) {
+                        sample(sb, family.name, child.labels, "quantile=\"" + QUANTILE_LABELS[i] + '"', values[i] / 1e9);
+                    }
+                    sample(sb, family.name + "_sum", child.labels, null, histogram.getSumNanos() / 1e9);
+                    sample(sb, family.name + "_count", child.labels, null, histogram.getCount());
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void sample(StringBuilder sb, String name, String labels, String extraLabel, double value) {
+        sb.append(name);
+        if (!labels.isEmpty() || extraLabel != null) {
+            sb.append('{').append(labels);
+            if (extraLabel != null) {
+                if (!labels.isEmpty()) sb.append(',');
+                sb.append(extraLabel);
+            }
+            sb.append('}');
+        }
+        sb.append(' ');
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            sb.append((long) value);
+        } else {
+            sb.append(value); // Double.toString (ex.: 1.5E-4) é aceito pelo Prometheus
+        }
+        sb.append('\n');
+    }
+}
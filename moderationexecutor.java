@@ -0,0 +1,235 @@
+package com.glsecurity.bot.listener;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executa a moderação fora da thread de eventos do JDA, preservando a ordem das mensagens de cada servidor.
+ *
+ * <p>Cada servidor é sempre atendido pela mesma "faixa" (uma thread com fila própria e limitada), então as
+ * mensagens de um servidor são processadas em ordem, enquanto servidores diferentes avançam em paralelo.
+ * Quando a fila de uma faixa enche, quem enfileira espera até {@code submitTimeoutMillis} (contrapressão
+ * sobre a leitura do gateway); depois disso a mensagem é rejeitada e contabilizada.</p>
+ */
+public class ModerationExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ModerationExecutor.class);
+
+    private final Lane[] lanes;
+    private final long submitTimeoutMillis;
+    private final Map<Long, GuildQueueStats> statsByGuild = new ConcurrentHashMap<>();
+    private final LongAdder rejected = new LongAdder();
+    private volatile boolean running = true;
+
+    /**
+     * Métricas de fila de um servidor: profundidade atual e tempo de espera na fila.
+     */
+    public static final class GuildQueueStats {
+        private final AtomicLong pending = new AtomicLong();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+
+        private void recordWait(long nanos) {
+            waitNanos.add(nanos);
+            long max;
+            while (nanos > (max = maxWaitNanos.get()) && !maxWaitNanos.compareAndSet(max, nanos)) {
+                // Repete até publicar o novo máximo
+            }
+        }
+
+        /** Mensagens do servidor aguardando na fila. */
+        public long getPending() {
+            return pending.get();
+        }
+
+        public long getCompleted() {
+            return completed.sum();
+        }
+
+        /** Tempo médio de espera na fila, em microssegundos. */
+        public double getAverageWaitMicros() {
+            long count = completed.sum();
+            return count == 0 ? 0 : waitNanos.sum() / 1_000.0 / count;
+        }
+
+        /** Maior tempo de espera na fila, em microssegundos. */
+        public double getMaxWaitMicros() {
+            return maxWaitNanos.get() / 1_000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("{pending=%d, completed=%d, avgWaitUs=%.1f, maxWaitUs=%.1f}",
+                    getPending(), getCompleted(), getAverageWaitMicros(), getMaxWaitMicros());
+        }
+    }
+
+    private static final class Task {
+        private final long guildId;
+        private final long enqueuedAt;
+        private final Runnable runnable;
+
+        private Task(long guildId, Runnable runnable) {
+            this.guildId = guildId;
+            this.enqueuedAt = System.nanoTime();
+            this.runnable = runnable;
+        }
+    }
+
+    private final class Lane implements Runnable {
+        private final BlockingQueue<Task> queue;
+        private final Thread thread;
+
+        private Lane(String namePrefix, int index, int capacity) {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.thread = new Thread(this, namePrefix + index);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (running || !queue.isEmpty()) {
+                Task task;
+                try {
+                    task = queue.poll(100, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (task == null) continue;
+                GuildQueueStats stats = statsFor(task.guildId);
+                stats.pending.decrementAndGet();
+                stats.recordWait(System.nanoTime() - task.enqueuedAt);
+                try {
+                    task.runnable.run();
+                } catch (Exception e) {
+                    logger.error("Erro ao moderar mensagem do servidor {}: {}", task.guildId, e.getMessage(), e);
+                } finally {
+                    stats.completed.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * @param laneCount Número de threads de moderação.
+     * @param queueCapacity Capacidade da fila de cada thread.
+     * @param submitTimeoutMillis Espera máxima por espaço na fila antes de rejeitar a mensagem.
+     */
+    public ModerationExecutor(int laneCount, int queueCapacity, long submitTimeoutMillis) {
+        this("moderation-", laneCount, queueCapacity, submitTimeoutMillis);
+    }
+
+    /**
+     * @param namePrefix Prefixo do nome das threads (ex.: "moderation-3-" para o shard 3).
+     */
+    public ModerationExecutor(String namePrefix, int laneCount, int queueCapacity, long submitTimeoutMillis) {
+        this.submitTimeoutMillis = submitTimeoutMillis;
+        this.lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane(namePrefix, i, queueCapacity);
+            lanes[i].thread.start();
+        }
+        logger.info("Executor de moderação '{}' iniciado com {} threads (fila de {} por thread).", namePrefix, laneCount, queueCapacity);
+    }
+
+    /**
+     * Enfileira uma tarefa de moderação na faixa do servidor.
+     * @param guildId O ID do servidor; define a faixa e, portanto, a ordem de execução.
+     * @param task A tarefa de moderação.
+     * @return false se a fila continuou cheia após o tempo limite e a tarefa foi rejeitada.
+     */
+    public boolean submit(long guildId, Runnable task) {
+        if (!running) {
+            rejected.increment();
+            return false;
+        }
+        GuildQueueStats stats = statsFor(guildId);
+        stats.pending.incrementAndGet();
+        try {
+            if (laneFor(guildId).queue.offer(new Task(guildId, task), submitTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        stats.pending.decrementAndGet();
+        rejected.increment();
+        logger.warn("Fila de moderação cheia para o servidor {}. Mensagem ignorada ({} rejeitadas no total).", guildId, rejected.sum());
+        return false;
+    }
+
+    private Lane laneFor(long guildId) {
+        // Espalha os snowflakes (cujos bits baixos variam pouco) antes de escolher a faixa
+        long h = guildId * 0x9E3779B97F4A7C15L;
+        return lanes[(int) ((h >>> 32) % lanes.length)];
+    }
+
+    private GuildQueueStats statsFor(long guildId) {
+        return statsByGuild.computeIfAbsent(guildId, id -> new GuildQueueStats());
+    }
+
+    /**
+     * @return As métricas de fila do servidor, ou null se ele ainda não enviou mensagens.
+     */
+    public GuildQueueStats getGuildStats(long guildId) {
+        return statsByGuild.get(guildId);
+    }
+
+    /**
+     * @return As métricas de fila de todos os servidores vistos.
+     */
+    public Map<Long, GuildQueueStats> getAllGuildStats() {
+        return statsByGuild;
+    }
+
+    /**
+     * @return O total de mensagens aguardando em todas as filas.
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (Lane lane : lanes) {
+            depth += lane.queue.size();
+        }
+        return depth;
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Para de aceitar mensagens e espera as filas esvaziarem.
+     * @param timeoutMillis Espera máxima total.
+     */
+    public void shutdown(long timeoutMillis) {
+        stopAccepting();
+        awaitTermination(System.currentTimeMillis() + timeoutMillis);
+    }
+
+    // Recusa novas mensagens; as threads terminam quando as filas esvaziarem
+    void stopAccepting() {
+        running = false;
+    }
+
+    // Espera as threads terminarem até o instante informado (System.currentTimeMillis())
+    void awaitTermination(long deadline) {
+        for (Lane lane : lanes) {
+            try {
+                lane.thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        logger.info("Executor de moderação encerrado ({} mensagens pendentes, {} rejeitadas).", getQueueDepth(), getRejected());
+    }
+}
@@ -0,0 +1,131 @@
+package com.glsecurity.bot.listener;
+
+import com.glsecurity.bot.config.BotConfig;
+import com.glsecurity.bot.filter.ContentScanner;
+import com.glsecurity.bot.filter.ContentScanner.FindingType;
+import com.glsecurity.bot.filter.DomainFilter;
+import com.glsecurity.bot.filter.GuildWordFilters;
+import com.glsecurity.bot.model.ServerSettings;
+
+import java.util.function.Predicate;
+
+/**
+ * Regras de decisão da moderação de conteúdo, sem dependência do JDA: recebe o texto e as configurações do
+ * servidor e diz se a mensagem viola alguma regra. O MessageListener aplica a decisão (apagar, avisar,
+ * registrar); os benchmarks exercitam esta classe isoladamente.
+ */
+public class ModerationPolicy {
+
+    private final ContentScanner contentScanner = new ContentScanner();
+    private final GuildWordFilters wordFilters;
+    private final DomainFilter domainFilter;
+
+    /**
+     * Política com registros próprios de dicionários e domínios, só com as listas da configuração (usada pelos benchmarks).
+     */
+    public ModerationPolicy() {
+        this(new GuildWordFilters(BotConfig::getProfanityMatcher),
+                new DomainFilter(BotConfig::getAllowedDomains, BotConfig::getBlockedDomains));
+    }
+
+    /**
+     * @param wordFilters O registro de dicionários por servidor, compartilhado com quem atualiza as configurações.
+     * @param domainFilter As listas de domínios globais e por servidor.
+     */
+    public ModerationPolicy(GuildWordFilters wordFilters, DomainFilter domainFilter) {
+        this.wordFilters = wordFilters;
+        this.domainFilter = domainFilter;
+    }
+
+    /**
+     * Resultado de uma violação detectada.
+     */
+    public static final class Decision {
+        private final String violationType;
+        private final String reason;
+        private final String detail;
+        private final int position;
+
+        private Decision(String violationType, String reason, String detail, int position) {
+            this.violationType = violationType;
+            this.reason = reason;
+            this.detail = detail;
+            this.position = position;
+        }
+
+        /** O tipo registrado no banco: PROFANE_WORD, LINK ou INVITE. */
+        public String getViolationType() {
+            return violationType;
+        }
+
+        /** O motivo exibido ao usuário. */
+        public String getReason() {
+            return reason;
+        }
+
+        /** O termo, o host ou o código do convite que causou a violação. */
+        public String getDetail() {
+            return detail;
+        }
+
+        /** A posição do trecho no conteúdo original. */
+        public int getPosition() {
+            return position;
+        }
+
+        @Override
+        public String toString() {
+            return "Decision{" + violationType + ", detail='" + detail + "', position=" + position + '}';
+        }
+    }
+
+    /**
+     * Avalia o conteúdo bruto de uma mensagem. Uma violação por mensagem é suficiente; a ordem de prioridade é
+     * palavra ofensiva, link e convite.
+     * @param content O conteúdo bruto da mensagem.
+     * @param settings As configurações do servidor.
+     * @param isOwnInvite Diz se um código de convite pertence ao próprio servidor (só é chamado se houver convites).
+     * @return A violação encontrada, ou null se a mensagem estiver limpa.
+     */
+    public Decision evaluate(CharSequence content, ServerSettings settings, Predicate<String> isOwnInvite) {
+        // Uma única passada sobre o conteúdo encontra palavras ofensivas, links e convites
+        ContentScanner.ScanResult scan = contentScanner.scan(content,
+                settings.isBlockProfaneWords() // Dicionário global do BotConfig mais as listas do servidor
+                        ? wordFilters.get(settings.getServerId(), settings.getCustomWords(), settings.getExemptWords())
+                        : null,
+                settings.isBlockLinks() || domainFilter.hasBlockLists(settings.getBlockedDomains()),
+                settings.isBlockInvites());
+        if (scan.isClean()) {
+            return null;
+        }
+
+        // --- Verificação de Palavras Ofensivas ---
+        int profane = scan.first(FindingType.PROFANE_WORD);
+        if (profane >= 0) {
+            String word = scan.detail(profane);
+            return new Decision("PROFANE_WORD", "Uso de palavra ofensiva: '" + word + "'", word, scan.start(profane));
+        }
+
+        // --- Verificação de Links (pelo host: listas de bloqueio/permissão e depois o blockLinks) ---
+        for (int link = scan.first(FindingType.LINK); link >= 0; link = scan.next(FindingType.LINK, link)) {
+            DomainFilter.Verdict verdict = domainFilter.check(settings.getServerId(), settings.getAllowedDomains(),
+                    settings.getBlockedDomains(), content, scan.detailStart(link), scan.detailEnd(link));
+            if (verdict == DomainFilter.Verdict.DENIED) {
+                return new Decision("LINK", "Envio de link de domínio bloqueado", scan.detail(link), scan.start(link));
+            }
+            if (verdict == DomainFilter.Verdict.UNLISTED && settings.isBlockLinks()) {
+                return new Decision("LINK", "Envio de link não permitido", scan.detail(link), scan.start(link));
+            }
+        }
+
+        // --- Verificação de Convites do Discord ---
+        for (int invite = scan.first(FindingType.INVITE); invite >= 0; invite = scan.next(FindingType.INVITE, invite)) {
+            String inviteCode = scan.detail(invite);
+            // Convites do próprio servidor são permitidos
+            if (!isOwnInvite.test(inviteCode)) {
+                return new Decision("INVITE", "Envio de convite do Discord não permitido", inviteCode, scan.start(invite));
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,737 @@
+package com.glsecurity.bot.panel;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.glsecurity.bot.config.BotConfig;
+import com.glsecurity.bot.dao.DatabaseManager;
+import com.glsecurity.bot.dao.ViolationExport;
+import com.glsecurity.bot.dao.ViolationPage;
+import com.glsecurity.bot.model.ServerSettings;
+import com.glsecurity.bot.model.StringListConverter;
+import com.glsecurity.bot.model.Violation;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Servidor HTTP embutido (servidor HTTP do JDK) que atende o painel de controle ({@code index.html}).
+ *
+ * <p>Rotas:
+ * <ul>
+ *     <li>{@code GET /api/settings/{serverId}} e {@code POST /api/settings/{serverId}}: configurações de um servidor;</li>
+ *     <li>{@code GET /api/profane-words}: dicionário global de palavras ofensivas;</li>
+ *     <li>{@code GET /api/violations?serverId=&cursor=&limit=}: log de violações paginado por cursor;</li>
+ *     <li>{@code GET /api/violations/export?format=ndjson|csv&serverId=&userId=&type=&from=&to=&source=db|archive}:
+ *     exportação completa do log (ou do arquivo morto), transmitida em partes enquanto é lida;</li>
+ *     <li>{@code GET /api/status}: estado do bot;</li>
+ *     <li>{@code GET /}: os arquivos estáticos do painel, lidos do diretório de trabalho.</li>
+ * </ul>
+ *
+ * <p>O painel não deve pesar na moderação. As configurações vêm do mesmo cache em memória que a moderação usa,
+ * e o JSON de cada servidor é guardado junto com a referência do objeto de origem: enquanto o cache devolver o
+ * mesmo objeto, a resposta e o ETag são reaproveitados, e um {@code If-None-Match} igual recebe 304 sem corpo.
+ * O dicionário global segue a mesma ideia com a lista do snapshot da configuração. As páginas do log são
+ * guardadas por alguns segundos e enquanto nenhuma violação nova for gravada, então um painel aberto fazendo
+ * polling não gera consultas repetidas. As requisições são atendidas por um pool pequeno e fixo de threads,
+ * separado das threads de moderação.</p>
+ *
+ * <p>Sem token, qualquer página aberta em um navegador na mesma máquina alcança o painel. Por isso, sem token, a API
+ * só responde a um {@code Host} local ou IP (um nome de domínio indica DNS rebinding), e toda gravação exige
+ * {@code Content-Type: application/json} e, se o navegador enviar {@code Origin}, a mesma origem do {@code Host}:
+ * um formulário ou um {@code fetch} no-cors de outro site não consegue enviar nenhum dos dois.</p>
+ */
+public class PanelServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(PanelServer.class);
+    private static final String JSON_TYPE = "application/json; charset=utf-8";
+    private static final int MAX_BODY_BYTES = 256 * 1024;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final long PAGE_CACHE_MAX_AGE_MILLIS = 5_000;
+    private static final List<String> WARNING_TYPES = Arrays.asList("dm", "public", "both");
+    private static final Map<String, String> STATIC_FILES = Map.of(
+            "index.html", "text/html; charset=utf-8",
+            "script.js", "text/javascript; charset=utf-8",
+            "style.css", "text/css; charset=utf-8",
+            "generated-icon.jpg", "image/jpeg");
+
+    private final DatabaseManager dbManager;
+    private final Path staticDir;
+    private final byte[] token; // Vazio: sem autenticação (o servidor escuta só localmente por padrão)
+    private final long startedAt = System.currentTimeMillis();
+    private final Gson gson = new Gson();
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Semaphore exportPermits; // Exportações longas não podem ocupar todas as threads do painel
+
+    // Respostas prontas: configurações por servidor, páginas do log e o dicionário global
+    private final Cache<String, CachedBody> settingsBodies = Caffeine.newBuilder().maximumSize(1_000).build();
+    private final Cache<String, CachedBody> pageBodies = Caffeine.newBuilder().maximumSize(256).build();
+    private volatile CachedBody profaneWordsBody;
+
+    // Corpo serializado, com o ETag e a versão dos dados que o geraram
+    private static final class CachedBody {
+        private final Object source;
+        private final long version;
+        private final long createdAt = System.currentTimeMillis();
+        private final byte[] body;
+        private final String etag;
+
+        private CachedBody(Object source, long version, byte[] body) {
+            this.source = source;
+            this.version = version;
+            this.body = body;
+            this.etag = etagOf(body);
+        }
+    }
+
+    /**
+     * @param dbManager O acesso ao banco e ao cache de configurações.
+     * @param bindAddress O endereço de escuta (local por padrão).
+     * @param port A porta HTTP.
+     * @param threads Threads que atendem as requisições.
+     * @param token Token exigido no cabeçalho {@code Authorization: Bearer}; vazio desativa a verificação.
+     */
+    public PanelServer(DatabaseManager dbManager, String bindAddress, int port, int threads, String token) throws IOException {
+        this.dbManager = dbManager;
+        this.staticDir = Paths.get("").toAbsolutePath();
+        this.token = token == null ? new byte[0] : token.getBytes(StandardCharsets.UTF_8);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "panel-http-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.exportPermits = new Semaphore(Math.max(1, threads - 1));
+        this.server = HttpServer.create(new InetSocketAddress(bindAddress, port), 0);
+        server.createContext("/api/", this::handleApi);
+        server.createContext("/", this::handleStatic);
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+        logger.info("Painel de controle disponível em http://{}:{}/", server.getAddress().getHostString(), server.getAddress().getPort());
+    }
+
+    private void handleApi(HttpExchange exchange) throws IOException {
+        boolean aborted = false;
+        try {
+            if (token.length == 0 && !isLocalHost(exchange)) {
+                sendError(exchange, 403, "Host não permitido; configure panel_token para acessar o painel por nome.");
+                return;
+            }
+            if (!isAuthorized(exchange)) {
+                sendError(exchange, 401, "Token inválido ou ausente.");
+                return;
+            }
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+            if (!"GET".equals(method) && !"HEAD".equals(method)) {
+                if (!isSameOrigin(exchange)) {
+                    sendError(exchange, 403, "Origem não permitida.");
+                    return;
+                }
+                if (!isJsonRequest(exchange)) {
+                    sendError(exchange, 415, "O corpo deve ser enviado com Content-Type: application/json.");
+                    return;
+                }
+            }
+            if (path.startsWith("/api/settings/")) {
+                String serverId = path.substring("/api/settings/".length());
+                if (!isSnowflake(serverId)) {
+                    sendError(exchange, 400, "ID de servidor inválido.");
+                } else if ("GET".equals(method)) {
+                    getSettings(exchange, serverId);
+                } else if ("POST".equals(method) || "PUT".equals(method)) {
+                    saveSettings(exchange, serverId);
+                } else {
+                    sendError(exchange, 405, "Método não permitido.");
+                }
+            } else if (!"GET".equals(method)) {
+                sendError(exchange, 405, "Método não permitido.");
+            } else if (path.equals("/api/profane-words")) {
+                getProfaneWords(exchange);
+            } else if (path.equals("/api/violations/export")) {
+                exportViolations(exchange);
+            } else if (path.equals("/api/violations")) {
+                getViolations(exchange);
+            } else if (path.equals("/api/status")) {
+                getStatus(exchange);
+            } else {
+                sendError(exchange, 404, "Rota não encontrada.");
+            }
+        } catch (AbortedResponseException e) {
+            // Fechar a troca escreveria o último bloco e o cliente veria uma resposta truncada como completa
+            aborted = true;
+            logger.error("Erro no meio da resposta de {} {}; conexão abortada: {}",
+                    exchange.getRequestMethod(), exchange.getRequestURI(), e.getCause().getMessage(), e.getCause());
+            throw e; // O servidor HTTP do JDK fecha a conexão sem terminar a resposta em partes
+        } catch (Exception e) {
+            logger.error("Erro ao atender {} {}: {}", exchange.getRequestMethod(), exchange.getRequestURI(), e.getMessage(), e);
+            if (exchange.getResponseCode() == -1) { // Cabeçalhos ainda não enviados
+                sendError(exchange, 500, "Erro interno.");
+            }
+        } finally {
+            if (!aborted) exchange.close();
+        }
+    }
+
+    // Falha depois que parte do corpo já foi enviada: a conexão precisa ser abortada, não fechada normalmente
+    private static final class AbortedResponseException extends IOException {
+        private AbortedResponseException(Exception cause) {
+            super(cause);
+        }
+    }
+
+    // Só envia os cabeçalhos (200, em partes) no primeiro byte escrito, para que um erro da consulta ainda vire um 500
+    private static final class DeferredResponseStream extends OutputStream {
+        private final HttpExchange exchange;
+        private OutputStream body;
+
+        private DeferredResponseStream(HttpExchange exchange) {
+            this.exchange = exchange;
+        }
+
+        private OutputStream body() throws IOException {
+            if (body == null) {
+                exchange.sendResponseHeaders(200, 0);
+                body = exchange.getResponseBody();
+            }
+            return body;
+        }
+
+        private boolean isCommitted() {
+            return body != null;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            body().write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len > 0) body().write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (body != null) body.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            body().close(); // Exportação vazia: envia os cabeçalhos e encerra o corpo
+        }
+    }
+
+    // GET /api/settings/{serverId}: o cache de configurações devolve o mesmo objeto até a próxima gravação
+    private void getSettings(HttpExchange exchange, String serverId) throws IOException {
+        ServerSettings settings = dbManager.findServerSettings(serverId); // Só leitura: um ID qualquer não cria configurações
+        if (settings == null) {
+            sendError(exchange, 404, "Servidor não encontrado.");
+            return;
+        }
+        CachedBody cached = settingsBodies.getIfPresent(serverId);
+        if (cached == null || cached.source != settings) {
+            cached = new CachedBody(settings, 0, gson.toJson(toJson(settings)).getBytes(StandardCharsets.UTF_8));
+            settingsBodies.put(serverId, cached);
+        }
+        sendCached(exchange, cached);
+    }
+
+    // POST /api/settings/{serverId}: aplica os campos enviados sobre uma cópia (o objeto em cache é compartilhado com a moderação)
+    private void saveSettings(HttpExchange exchange, String serverId) throws IOException {
+        JsonObject changes;
+        try {
+            JsonElement parsed = JsonParser.parseString(readBody(exchange));
+            if (!parsed.isJsonObject()) {
+                sendError(exchange, 400, "O corpo deve ser um objeto JSON.");
+                return;
+            }
+            changes = parsed.getAsJsonObject();
+        } catch (JsonParseException | IllegalStateException e) {
+            sendError(exchange, 400, "JSON inválido: " + e.getMessage());
+            return;
+        }
+
+        JsonObject merged = toJson(dbManager.getServerSettings(serverId));
+        for (Map.Entry<String, JsonElement> entry : changes.entrySet()) {
+            if (merged.has(entry.getKey()) && !"serverId".equals(entry.getKey())) {
+                merged.add(entry.getKey(), entry.getValue());
+            }
+        }
+        ServerSettings updated;
+        try {
+            updated = fromJson(serverId, merged);
+        } catch (IllegalArgumentException | IllegalStateException | UnsupportedOperationException e) {
+            sendError(exchange, 400, e.getMessage());
+            return;
+        }
+        dbManager.saveOrUpdateServerSettings(updated);
+        settingsBodies.invalidate(serverId);
+        getSettings(exchange, serverId);
+    }
+
+    // GET /api/profane-words: a lista do snapshot da configuração só muda quando o arquivo é recarregado
+    private void getProfaneWords(HttpExchange exchange) throws IOException {
+        List<String> words = BotConfig.getProfaneWords();
+        CachedBody cached = profaneWordsBody;
+        if (cached == null || cached.source != words) {
+            JsonObject json = new JsonObject();
+            json.add("words", toJsonArray(words));
+            cached = new CachedBody(words, 0, gson.toJson(json).getBytes(StandardCharsets.UTF_8));
+            profaneWordsBody = cached;
+        }
+        sendCached(exchange, cached);
+    }
+
+    // GET /api/violations: a página guardada vale enquanto nenhuma violação nova for gravada (e por no máximo alguns segundos)
+    private void getViolations(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        String serverId = query.get("serverId");
+        String cursor = query.get("cursor");
+        if (serverId != null && !serverId.isEmpty() && !isSnowflake(serverId)) {
+            sendError(exchange, 400, "ID de servidor inválido.");
+            return;
+        }
+        int limit;
+        try {
+            limit = query.containsKey("limit") ? Integer.parseInt(query.get("limit")) : DEFAULT_PAGE_SIZE;
+        } catch (NumberFormatException e) {
+            sendError(exchange, 400, "limit deve ser um número.");
+            return;
+        }
+        if (serverId != null && serverId.isEmpty()) serverId = null;
+        if (cursor != null && cursor.isEmpty()) cursor = null;
+
+        String key = serverId + "|" + cursor + "|" + limit;
+        long version = dbManager.getViolationWriter().getWritten();
+        CachedBody cached = pageBodies.getIfPresent(key);
+        if (cached == null || cached.version != version
+                || System.currentTimeMillis() - cached.createdAt > PAGE_CACHE_MAX_AGE_MILLIS) {
+            ViolationPage page;
+            try {
+                page = serverId != null
+                        ? dbManager.getViolationsByServer(serverId, cursor, limit)
+                        : dbManager.getRecentViolations(cursor, limit);
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, "cursor inválido.");
+                return;
+            }
+            cached = new CachedBody(null, version, gson.toJson(toJson(page)).getBytes(StandardCharsets.UTF_8));
+            pageBodies.put(key, cached);
+        }
+        sendCached(exchange, cached);
+    }
+
+    // GET /api/violations/export: resposta em partes (chunked), escrita conforme as linhas são lidas. A consulta roda
+    // antes dos cabeçalhos irem para o cliente; um erro depois disso aborta a conexão em vez de encerrar a resposta.
+    private void exportViolations(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        ViolationExport.Format format = ViolationExport.Format.fromName(query.getOrDefault("format", "ndjson"));
+        if (format == null) {
+            sendError(exchange, 400, "format deve ser ndjson ou csv.");
+            return;
+        }
+        boolean archive = "archive".equals(query.get("source"));
+        ViolationExport.Filter filter;
+        try {
+            filter = new ViolationExport.Filter(
+                    snowflakeParam(query, "serverId"), snowflakeParam(query, "userId"), emptyToNull(query.get("type")),
+                    dateParam(query, "from"), dateParam(query, "to"));
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+            return;
+        }
+        if (!exportPermits.tryAcquire()) {
+            sendError(exchange, 429, "Há exportações demais em andamento; tente novamente em instantes.");
+            return;
+        }
+        try {
+            exchange.getResponseHeaders().set("Content-Type", format.getContentType());
+            exchange.getResponseHeaders().set("Content-Disposition", "attachment; filename=\"violations." + format.getExtension() + "\"");
+            exchange.getResponseHeaders().set("Cache-Control", "no-store");
+            DeferredResponseStream out = new DeferredResponseStream(exchange);
+            try {
+                if (archive) {
+                    dbManager.getViolationArchiver().export(filter, format, out);
+                } else {
+                    dbManager.exportViolations(filter, format, out);
+                }
+                out.close();
+            } catch (IOException e) {
+                logger.warn("Exportação de violações interrompida ({}): {}", filter, e.getMessage());
+            } catch (RuntimeException e) {
+                if (!out.isCommitted()) {
+                    exchange.getResponseHeaders().remove("Content-Disposition");
+                    throw e; // Nada enviado ainda: handleApi responde 500
+                }
+                throw new AbortedResponseException(e);
+            }
+        } finally {
+            exportPermits.release();
+        }
+    }
+
+    // GET /api/status: só contadores em memória, sem consulta ao banco
+    private void getStatus(HttpExchange exchange) throws IOException {
+        JsonObject json = new JsonObject();
+        json.addProperty("status", "online");
+        json.addProperty("uptimeSeconds", (System.currentTimeMillis() - startedAt) / 1000);
+        json.addProperty("violationsTotal", dbManager.getTotalViolationsCount());
+        json.addProperty("violationQueueDepth", dbManager.getViolationWriter().queueSize());
+        json.addProperty("cachedServers", dbManager.getSettingsCache().size());
+        json.addProperty("profaneWords", BotConfig.getProfaneWords().size());
+        exchange.getResponseHeaders().set("Cache-Control", "no-store");
+        send(exchange, 200, JSON_TYPE, gson.toJson(json).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // GET /: arquivos do painel; o ETag vem do tamanho e da data de modificação, sem ler o arquivo para responder 304
+    private void handleStatic(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod()) && !"HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            String name = exchange.getRequestURI().getPath().substring(1);
+            if (name.isEmpty()) name = "index.html";
+            String contentType = STATIC_FILES.get(name); // Só os arquivos conhecidos: nada de caminhos arbitrários
+            Path file = staticDir.resolve(name);
+            if (contentType == null || !Files.isRegularFile(file)) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            String etag = "\"" + Long.toHexString(Files.size(file)) + "-" + Long.toHexString(Files.getLastModifiedTime(file).toMillis()) + "\"";
+            exchange.getResponseHeaders().set("ETag", etag);
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            byte[] body = Files.readAllBytes(file);
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (Exception e) {
+            logger.error("Erro ao servir '{}': {}", exchange.getRequestURI(), e.getMessage(), e);
+            if (exchange.getResponseCode() == -1) {
+                exchange.sendResponseHeaders(500, -1);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static JsonObject toJson(ServerSettings settings) {
+        JsonObject json = new JsonObject();
+        json.addProperty("serverId", settings.getServerId());
+        json.addProperty("blockProfaneWords", settings.isBlockProfaneWords());
+        json.addProperty("blockLinks", settings.isBlockLinks());
+        json.addProperty("blockInvites", settings.isBlockInvites());
+        json.addProperty("warningType", settings.getWarningType());
+        json.addProperty("adminOnlyCommands", settings.isAdminOnlyCommands());
+        json.addProperty("autoDeleteWarnings", settings.isAutoDeleteWarnings());
+        json.addProperty("warningDeleteDelay", settings.getWarningDeleteDelay());
+        json.addProperty("logViolations", settings.isLogViolations());
+        json.addProperty("blockFlood", settings.isBlockFlood());
+        json.addProperty("floodMaxMessages", settings.getFloodMaxMessages());
+        json.addProperty("floodWindowSeconds", settings.getFloodWindowSeconds());
+        json.addProperty("blockRaids", settings.isBlockRaids());
+        json.addProperty("raidMinUsers", settings.getRaidMinUsers());
+        json.addProperty("raidWindowSeconds", settings.getRaidWindowSeconds());
+        json.add("customWords", toJsonArray(settings.getCustomWords()));
+        json.add("exemptWords", toJsonArray(settings.getExemptWords()));
+        json.add("allowedDomains", toJsonArray(settings.getAllowedDomains()));
+        json.add("blockedDomains", toJsonArray(settings.getBlockedDomains()));
+        json.addProperty("retentionDays", settings.getRetentionDays());
+        return json;
+    }
+
+    // Monta e valida as configurações; lança IllegalArgumentException com a mensagem para o painel
+    private static ServerSettings fromJson(String serverId, JsonObject json) {
+        ServerSettings settings = new ServerSettings(serverId);
+        settings.setBlockProfaneWords(json.get("blockProfaneWords").getAsBoolean());
+        settings.setBlockLinks(json.get("blockLinks").getAsBoolean());
+        settings.setBlockInvites(json.get("blockInvites").getAsBoolean());
+        String warningType = json.get("warningType").getAsString().toLowerCase(Locale.ROOT);
+        if (!WARNING_TYPES.contains(warningType)) {
+            throw new IllegalArgumentException("warningType deve ser um de " + WARNING_TYPES);
+        }
+        settings.setWarningType(warningType);
+        settings.setAdminOnlyCommands(json.get("adminOnlyCommands").getAsBoolean());
+        settings.setAutoDeleteWarnings(json.get("autoDeleteWarnings").getAsBoolean());
+        settings.setWarningDeleteDelay(positive(json, "warningDeleteDelay"));
+        settings.setLogViolations(json.get("logViolations").getAsBoolean());
+        settings.setBlockFlood(json.get("blockFlood").getAsBoolean());
+        settings.setFloodMaxMessages(positive(json, "floodMaxMessages"));
+        settings.setFloodWindowSeconds(positive(json, "floodWindowSeconds"));
+        settings.setBlockRaids(json.get("blockRaids").getAsBoolean());
+        int raidMinUsers = positive(json, "raidMinUsers");
+        if (raidMinUsers < 2) {
+            throw new IllegalArgumentException("raidMinUsers deve ser pelo menos 2");
+        }
+        settings.setRaidMinUsers(raidMinUsers);
+        settings.setRaidWindowSeconds(positive(json, "raidWindowSeconds"));
+        settings.setCustomWords(toList(json.get("customWords")));
+        settings.setExemptWords(toList(json.get("exemptWords")));
+        settings.setAllowedDomains(toList(json.get("allowedDomains")));
+        settings.setBlockedDomains(toList(json.get("blockedDomains")));
+        settings.setRetentionDays(Math.max(-1, json.get("retentionDays").getAsInt())); // Negativos equivalem a guardar tudo
+        return settings;
+    }
+
+    private static int positive(JsonObject json, String field) {
+        int value;
+        try {
+            value = json.get(field).getAsInt();
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + " deve ser um número", e);
+        }
+        if (value <= 0) {
+            throw new IllegalArgumentException(field + " deve ser maior que 0");
+        }
+        return value;
+    }
+
+    // Aceita um array JSON ou o texto da textarea (uma palavra por linha)
+    private static List<String> toList(JsonElement element) {
+        if (element == null || element.isJsonNull()) {
+            return List.of();
+        }
+        if (element.isJsonPrimitive()) {
+            return StringListConverter.parse(element.getAsString());
+        }
+        List<String> lines = new ArrayList<>();
+        for (JsonElement item : element.getAsJsonArray()) {
+            lines.add(item.getAsString());
+        }
+        return StringListConverter.parse(String.join("\n", lines));
+    }
+
+    private static JsonArray toJsonArray(List<String> values) {
+        JsonArray array = new JsonArray(values.size());
+        for (String value : values) {
+            array.add(value);
+        }
+        return array;
+    }
+
+    private static JsonObject toJson(ViolationPage page) {
+        JsonArray items = new JsonArray(page.getItems().size());
+        for (Violation violation : page.getItems()) {
+            JsonObject item = new JsonObject();
+            item.addProperty("id", violation.getId());
+            item.addProperty("timestamp", String.valueOf(violation.getTimestamp()));
+            item.addProperty("serverId", violation.getServerId());
+            item.addProperty("serverName", violation.getServerName());
+            item.addProperty("userId", violation.getUserId());
+            item.addProperty("userName", violation.getUserName());
+            item.addProperty("violationType", violation.getViolationType());
+            item.addProperty("reason", violation.getReason());
+            item.addProperty("messageContent", violation.getMessageContent());
+            items.add(item);
+        }
+        JsonObject json = new JsonObject();
+        json.add("items", items);
+        json.addProperty("nextCursor", page.getNextCursor());
+        return json;
+    }
+
+    private boolean isAuthorized(HttpExchange exchange) {
+        if (token.length == 0) {
+            return true;
+        }
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) {
+            return false;
+        }
+        return MessageDigest.isEqual(token, header.substring("Bearer ".length()).trim().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Host sem nome de domínio: "localhost" ou um IP literal, que um ataque de DNS rebinding não consegue usar
+    private static boolean isLocalHost(HttpExchange exchange) {
+        String host = hostName(exchange.getRequestHeaders().getFirst("Host"));
+        if (host == null) return false;
+        if (host.equals("localhost") || host.startsWith("[") && host.endsWith("]")) return true; // IPv6 sempre vem entre colchetes
+        for (int i = 0; i < host.length(); i++) {
+            char c = host.charAt(i);
+            if ((c < '0' || c > '9') && c != '.') return false;
+        }
+        return !host.isEmpty();
+    }
+
+    // Sem Origin (clientes fora do navegador) é aceito; com Origin, precisa apontar para o mesmo Host da requisição
+    private static boolean isSameOrigin(HttpExchange exchange) {
+        String origin = exchange.getRequestHeaders().getFirst("Origin");
+        if (origin == null) return true;
+        String host = exchange.getRequestHeaders().getFirst("Host");
+        int scheme = origin.indexOf("://");
+        return host != null && scheme > 0 && origin.substring(scheme + 3).equalsIgnoreCase(host);
+    }
+
+    private static boolean isJsonRequest(HttpExchange exchange) {
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (contentType == null) return false;
+        int semicolon = contentType.indexOf(';');
+        String mediaType = (semicolon >= 0 ? contentType.substring(0, semicolon) : contentType).trim();
+        return mediaType.equalsIgnoreCase("application/json");
+    }
+
+    // O nome do Host sem a porta, em minúsculas ("[::1]:8080" vira "[::1]")
+    private static String hostName(String host) {
+        if (host == null) return null;
+        host = host.trim().toLowerCase(Locale.ROOT);
+        int end = host.startsWith("[") ? host.indexOf(']') + 1 : host.indexOf(':');
+        return end > 0 ? host.substring(0, end) : host;
+    }
+
+    private static boolean isSnowflake(String id) {
+        if (id.isEmpty() || id.length() > 20) return false;
+        for (int i = 0; i < id.length(); i++) {
+            if (id.charAt(i) < '0' || id.charAt(i) > '9') return false;
+        }
+        return true;
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    private static String snowflakeParam(Map<String, String> query, String name) {
+        String value = emptyToNull(query.get(name));
+        if (value != null && !isSnowflake(value)) {
+            throw new IllegalArgumentException(name + " inválido.");
+        }
+        return value;
+    }
+
+    // Aceita data e hora ISO (2025-01-31T12:00:00) ou só a data (2025-01-31, meia-noite)
+    private static LocalDateTime dateParam(Map<String, String> query, String name) {
+        String value = emptyToNull(query.get(name));
+        if (value == null) {
+            return null;
+        }
+        try {
+            return value.indexOf('T') >= 0 ? LocalDateTime.parse(value) : LocalDate.parse(value).atStartOfDay();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(name + " deve ser uma data ISO (ex.: 2025-01-31 ou 2025-01-31T12:00:00).", e);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq >= 0 ? pair.substring(0, eq) : pair, StandardCharsets.UTF_8);
+            String value = eq >= 0 ? URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8) : "";
+            params.put(name, value);
+        }
+        return params;
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+                if (out.size() > MAX_BODY_BYTES) {
+                    throw new JsonParseException("corpo maior que " + MAX_BODY_BYTES + " bytes");
+                }
+            }
+            return out.toString(StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String etagOf(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            StringBuilder etag = new StringBuilder("\"");
+            for (int i = 0; i < 12; i++) {
+                etag.append(Character.forDigit((digest[i] >> 4) & 0xF, 16)).append(Character.forDigit(digest[i] & 0xF, 16));
+            }
+            return etag.append('"').toString();
+        } catch (java.security.NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // SHA-256 é obrigatório em toda JVM
+        }
+    }
+
+    private static void sendCached(HttpExchange exchange, CachedBody cached) throws IOException {
+        exchange.getResponseHeaders().set("ETag", cached.etag);
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache"); // Sempre revalidar, mas com 304 quando nada mudou
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch != null && ifNoneMatch.contains(cached.etag)) { // Aceita também uma lista de ETags
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+        send(exchange, 200, JSON_TYPE, cached.body);
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        JsonObject json = new JsonObject();
+        json.addProperty("error", message);
+        send(exchange, status, JSON_TYPE, gson.toJson(json).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.glsecurity.bot.benchmark;
+
+import com.glsecurity.bot.config.BotConfig;
+import com.glsecurity.bot.filter.ProfanityMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Benchmark simples que compara o laço antigo (content.contains(word) para cada palavra)
+ * com o ProfanityMatcher compilado, usando listas de 40, 1.000 e 50.000 termos. O matcher é medido com palavras
+ * inteiras (a configuração usada pelo bot) e sem limites de palavra (a mesma semântica do contains).
+ * Antes de medir, confere que as evasões conhecidas continuam sendo encontradas.
+ * Execute com: java -cp discord-bot-jar-with-dependencies.jar com.glsecurity.bot.benchmark.ProfanityBenchmark
+ */
+public class ProfanityBenchmark {
+
+    private static final int[] DICTIONARY_SIZES = {40, 1_000, 50_000};
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    // Mensagens de chat comuns (a maioria limpa), repetidas para simular o tráfego real
+    private static final String[] MESSAGES = {
+            "bom dia pessoal, alguém vai jogar hoje à noite?",
+            "acabei de ver o trailer novo, ficou muito bom",
+            "quem quiser entrar na call é só chamar",
+            "esse servidor tá muito organizado, parabéns aos mods",
+            "alguém sabe como configurar o bot de música?",
+            "kkkkkkk não acredito que isso aconteceu",
+            "vou sair agora, até amanhã galera",
+            "isso aqui é um lixo, sério",
+            "a partida de ontem foi muito disputada, ganhamos no último minuto depois de uma virada incrível"
+                    + " que ninguém esperava, o time inteiro jogou muito bem e a comunicação foi perfeita",
+            "https://example.com/algum/link alguém já viu isso?"
+    };
+
+    // Variações que o matcher de produção (palavras inteiras) precisa encontrar, e palavras que não são o termo
+    private static final String[] EVASIONS = {
+            "p0rr4", "f.d.p", "p-o-r-r-a", "ｌｉｘｏ", "l i x o", "a.lixo", "a lixo", "lixo1", "1lixo", "isso é um LIXO!"
+    };
+    private static final String[] NOT_MATCHED = {"lixoso", "relixo", "lixo1a"};
+
+    public static void main(String[] args) {
+        checkEvasions();
+        List<String> baseWords = BotConfig.getProfaneWords();
+        System.out.printf(Locale.ROOT, "%-10s %-16s %14s %14s %10s%n", "termos", "estratégia", "ns/mensagem", "mensagens/s", "acertos");
+
+        for (int size : DICTIONARY_SIZES) {
+            List<String> words = buildDictionary(baseWords, size);
+            ProfanityMatcher wholeWords = ProfanityMatcher.compile(words, true); // Como o BotConfig compila
+            ProfanityMatcher substrings = ProfanityMatcher.compile(words, false);
+
+            // O laço antigo é muito lento com dicionários grandes; reduz as iterações para manter o tempo razoável
+            int iterations = Math.max(200, 2_000_000 / size);
+
+            measure("contains", size, iterations, () -> {
+                int hits = 0;
+                for (String message : MESSAGES) {
+                    String content = message.toLowerCase();
+                    for (String word : words) {
+                        if (content.contains(word)) {
+                            hits++;
+                            break;
+                        }
+                    }
+                }
+                return hits;
+            });
+
+            measure("aho-corasick", size, iterations, () -> countHits(wholeWords));
+            measure("aho-substring", size, iterations, () -> countHits(substrings));
+        }
+    }
+
+    private static int countHits(ProfanityMatcher matcher) {
+        int hits = 0;
+        for (String message : MESSAGES) {
+            if (matcher.findFirst(message) != null) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    private static void checkEvasions() {
+        ProfanityMatcher matcher = ProfanityMatcher.compile(List.of("lixo", "porra", "fdp"), true);
+        List<String> failures = new ArrayList<>();
+        for (String message : EVASIONS) {
+            if (matcher.findFirst(message) == null) failures.add("não encontrou '" + message + "'");
+        }
+        for (String message : NOT_MATCHED) {
+            if (matcher.findFirst(message) != null) failures.add("encontrou '" + message + "'");
+        }
+        if (!failures.isEmpty()) {
+            throw new IllegalStateException("Verificação de evasões falhou: " + String.join("; ", failures));
+        }
+        System.out.println("Evasões conhecidas: " + EVASIONS.length + " encontradas.");
+    }
+
+    private interface Round {
+        int run();
+    }
+
+    private static void measure(String name, int size, int iterations, Round round) {
+        long sink = 0;
+        for (int w = 0; w < WARMUP_ROUNDS; w++) {
+            for (int i = 0; i < iterations; i++) sink += round.run();
+        }
+        long best = Long.MAX_VALUE;
+        int hits = 0;
+        for (int r = 0; r < MEASURED_ROUNDS; r++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                hits = round.run();
+                sink += hits;
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double nsPerMessage = (double) best / ((long) iterations * MESSAGES.length);
+        System.out.printf(Locale.ROOT, "%-10d %-16s %14.1f %14.0f %10d%n",
+                size, name, nsPerMessage, 1e9 / nsPerMessage, hits);
+        if (sink == 42) System.out.print(""); // Evita que o JIT elimine o trabalho medido
+    }
+
+    // Completa a lista real com termos sintéticos determinísticos até atingir o tamanho desejado
+    private static List<String> buildDictionary(List<String> baseWords, int size) {
+        List<String> words = new ArrayList<>(size);
+        for (String word : baseWords) {
+            if (words.size() >= size) break;
+            words.add(word.toLowerCase());
+        }
+        Random random = new Random(size);
+        while (words.size() < size) {
+            int length = 4 + random.nextInt(7);
+            StringBuilder sb = new StringBuilder(length);
+            for (int i = 0; i < length; i++) {
+                sb.append((char) ('a' + random.nextInt(26)));
+            }
+            words.add(sb.toString());
+        }
+        return words;
+    }
+}
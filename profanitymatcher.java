@@ -0,0 +1,319 @@
+package com.glsecurity.bot.filter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Autômato Aho-Corasick compilado a partir da lista de palavras ofensivas.
+ * Encontra todas as palavras em uma única passada linear sobre o texto, sem
+ * criar cópias em minúsculas da mensagem. A instância é imutável e pode ser
+ * compartilhada entre threads.
+ *
+ * <p>Os termos são compilados já normalizados pelo {@link TextNormalizer}, e o texto é percorrido na sua
+ * forma normalizada; as posições reportadas são convertidas de volta para o texto original.</p>
+ */
+public final class ProfanityMatcher {
+
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+
+    private final String[] terms;  // Termos normalizados (as chaves do autômato)
+    private final String[] labels; // Termos como vieram da configuração, em minúsculas, para os relatórios
+    private final boolean wholeWords;
+
+    // Transições achatadas: as arestas do estado s ficam em [edgeStart[s], edgeStart[s + 1]), ordenadas por caractere
+    private final int[] edgeStart;
+    private final char[] edgeChars;
+    private final int[] edgeTargets;
+    private final int[] rootNext; // Tabela direta para as transições da raiz em Latin-1 (o caso mais comum)
+
+    private final int[] fail;     // Link de falha de cada estado
+    private final int[] termAt;   // Índice do termo que termina no estado, ou NONE
+    private final int[] outLink;  // Próximo estado na cadeia de falha que emite um termo, ou NONE
+
+    /**
+     * Representa uma ocorrência de um termo no texto analisado.
+     */
+    public static final class Match {
+        private final String term;
+        private final int start;
+        private final int end;
+
+        Match(String term, int start, int end) {
+            this.term = term;
+            this.start = start;
+            this.end = end;
+        }
+
+        public String getTerm() {
+            return term;
+        }
+
+        /** Posição inicial (inclusiva) no texto original. */
+        public int getStart() {
+            return start;
+        }
+
+        /** Posição final (exclusiva) no texto original. */
+        public int getEnd() {
+            return end;
+        }
+
+        @Override
+        public String toString() {
+            return "Match{term='" + term + "', start=" + start + ", end=" + end + '}';
+        }
+    }
+
+    private ProfanityMatcher(String[] terms, String[] labels, boolean wholeWords, int[] edgeStart, char[] edgeChars, int[] edgeTargets,
+                             int[] fail, int[] termAt, int[] outLink) {
+        this.terms = terms;
+        this.labels = labels;
+        this.wholeWords = wholeWords;
+        this.edgeStart = edgeStart;
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+        this.rootNext = new int[256];
+        for (char c = 0; c < rootNext.length; c++) {
+            int target = edge(edgeStart, edgeChars, edgeTargets, ROOT, c);
+            rootNext[c] = target == NONE ? ROOT : target;
+        }
+        this.fail = fail;
+        this.termAt = termAt;
+        this.outLink = outLink;
+    }
+
+    /**
+     * Compila o autômato a partir de uma lista de palavras.
+     * @param words As palavras a serem detectadas (vazias e duplicadas após a normalização são ignoradas).
+     * @param wholeWords Se verdadeiro, só reporta ocorrências delimitadas por caracteres que não são letras ou dígitos.
+     * @return O matcher compilado.
+     */
+    public static ProfanityMatcher compile(Collection<String> words, boolean wholeWords) {
+        Map<String, String> unique = new LinkedHashMap<>(); // Termo normalizado -> primeira grafia da configuração
+        if (words != null) {
+            for (String word : words) {
+                if (word == null) continue;
+                String normalized = TextNormalizer.normalizeTerm(word);
+                if (!normalized.isEmpty()) unique.putIfAbsent(normalized, word.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        String[] terms = unique.keySet().toArray(new String[0]);
+        String[] labels = unique.values().toArray(new String[0]);
+
+        // 1) Trie temporária (só existe durante a compilação)
+        List<TreeMap<Character, Integer>> children = new ArrayList<>();
+        List<Integer> terminal = new ArrayList<>();
+        children.add(new TreeMap<>());
+        terminal.add(NONE);
+        for (int t = 0; t < terms.length; t++) {
+            String term = terms[t];
+            int state = ROOT;
+            for (int i = 0; i < term.length(); i++) {
+                Integer next = children.get(state).get(term.charAt(i));
+                if (next == null) {
+                    next = children.size();
+                    children.add(new TreeMap<>());
+                    terminal.add(NONE);
+                    children.get(state).put(term.charAt(i), next);
+                }
+                state = next;
+            }
+            terminal.set(state, t);
+        }
+
+        // 2) Achata as transições em arrays primitivos
+        int states = children.size();
+        int[] edgeStart = new int[states + 1];
+        int edges = 0;
+        for (int s = 0; s < states; s++) {
+            edgeStart[s] = edges;
+            edges += children.get(s).size();
+        }
+        edgeStart[states] = edges;
+        char[] edgeChars = new char[edges];
+        int[] edgeTargets = new int[edges];
+        int[] termAt = new int[states];
+        for (int s = 0; s < states; s++) {
+            int e = edgeStart[s];
+            for (Map.Entry<Character, Integer> entry : children.get(s).entrySet()) {
+                edgeChars[e] = entry.getKey();
+                edgeTargets[e] = entry.getValue();
+                e++;
+            }
+            termAt[s] = terminal.get(s);
+        }
+        children = null; // Libera a trie temporária antes da busca em largura
+
+        // 3) Links de falha e de saída por busca em largura
+        int[] fail = new int[states];
+        int[] outLink = new int[states];
+        outLink[ROOT] = NONE;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int e = edgeStart[ROOT]; e < edgeStart[ROOT + 1]; e++) {
+            int child = edgeTargets[e];
+            fail[child] = ROOT;
+            outLink[child] = NONE;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int e = edgeStart[state]; e < edgeStart[state + 1]; e++) {
+                int child = edgeTargets[e];
+                char c = edgeChars[e];
+                int f = fail[state];
+                int target;
+                while ((target = edge(edgeStart, edgeChars, edgeTargets, f, c)) == NONE && f != ROOT) {
+                    f = fail[f];
+                }
+                fail[child] = target == NONE ? ROOT : target;
+                int fc = fail[child];
+                outLink[child] = termAt[fc] != NONE ? fc : outLink[fc];
+                queue.add(child);
+            }
+        }
+
+        return new ProfanityMatcher(terms, labels, wholeWords, edgeStart, edgeChars, edgeTargets, fail, termAt, outLink);
+    }
+
+    /**
+     * Retorna a primeira ocorrência válida (pela posição final) no texto, ou null se não houver nenhuma.
+     * @param text O texto a ser analisado; não precisa estar em minúsculas.
+     * @return A ocorrência encontrada ou null.
+     */
+    public Match findFirst(CharSequence text) {
+        TextNormalizer.NormalizedText normalized = TextNormalizer.normalize(text);
+        int state = ROOT;
+        int length = normalized.length();
+        for (int i = 0; i < length; i++) {
+            state = step(state, normalized.charAt(i));
+            for (int o = firstOutput(state); o != NONE; o = nextOutput(o)) {
+                int start = i + 1 - termLength(o);
+                if (isValid(normalized, start, i + 1)) {
+                    return new Match(termOf(o), normalized.originalOffset(start), normalized.originalOffset(i + 1));
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Retorna todas as ocorrências válidas no texto, ordenadas pela posição final.
+     * @param text O texto a ser analisado; não precisa estar em minúsculas.
+     * @return Uma lista (possivelmente vazia) de ocorrências.
+     */
+    public List<Match> findAll(CharSequence text) {
+        List<Match> matches = new ArrayList<>();
+        TextNormalizer.NormalizedText normalized = TextNormalizer.normalize(text);
+        int state = ROOT;
+        int length = normalized.length();
+        for (int i = 0; i < length; i++) {
+            state = step(state, normalized.charAt(i));
+            for (int o = firstOutput(state); o != NONE; o = nextOutput(o)) {
+                int start = i + 1 - termLength(o);
+                if (isValid(normalized, start, i + 1)) {
+                    matches.add(new Match(termOf(o), normalized.originalOffset(start), normalized.originalOffset(i + 1)));
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * @return O número de termos distintos compilados no autômato.
+     */
+    public int size() {
+        return terms.length;
+    }
+
+    public boolean isWholeWords() {
+        return wholeWords;
+    }
+
+    // --- Passo a passo, usado pelo ContentScanner para integrar o autômato à sua própria varredura ---
+
+    /** Estado inicial do autômato. */
+    static int root() {
+        return ROOT;
+    }
+
+    /** Consome um caractere já normalizado pelo {@link TextNormalizer} e retorna o próximo estado. */
+    int step(int state, char c) {
+        return next(state, c);
+    }
+
+    /** Primeiro estado de saída alcançável a partir de {@code state}, ou -1. */
+    int firstOutput(int state) {
+        return termAt[state] != NONE ? state : outLink[state];
+    }
+
+    /** Próximo estado de saída na cadeia, ou -1. */
+    int nextOutput(int output) {
+        return outLink[output];
+    }
+
+    /** Termo emitido por um estado de saída, como escrito na configuração. */
+    String termOf(int output) {
+        return labels[termAt[output]];
+    }
+
+    /** Termo emitido, na forma normalizada (a mesma usada nas isenções de cada servidor). */
+    String termKey(int output) {
+        return terms[termAt[output]];
+    }
+
+    /** Comprimento do termo emitido, no texto normalizado. */
+    int termLength(int output) {
+        return terms[termAt[output]].length();
+    }
+
+    private int next(int state, char c) {
+        while (true) {
+            if (state == ROOT) {
+                if (c < rootNext.length) return rootNext[c];
+                int target = edge(edgeStart, edgeChars, edgeTargets, ROOT, c);
+                return target == NONE ? ROOT : target;
+            }
+            int target = edge(edgeStart, edgeChars, edgeTargets, state, c);
+            if (target != NONE) return target;
+            state = fail[state];
+        }
+    }
+
+    /**
+     * Verifica os limites de palavra (quando ativados) de uma ocorrência em [start, end).
+     * Dígitos colados à ocorrência contam como limite ("lixo1", "1lixo"), para que o leetspeak não crie evasões.
+     */
+    boolean isValid(TextNormalizer.NormalizedText text, int start, int end) {
+        if (!wholeWords) return true;
+        return (start == 0 || !isWordChar(text.charAt(start - 1)) || text.isDigitPrefix(start))
+                && (end == text.length() || !isWordChar(text.charAt(end)) || text.isDigitSuffix(end));
+    }
+
+    private static int edge(int[] edgeStart, char[] edgeChars, int[] edgeTargets, int state, char c) {
+        int low = edgeStart[state];
+        int high = edgeStart[state + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char value = edgeChars[mid];
+            if (value < c) {
+                low = mid + 1;
+            } else if (value > c) {
+                high = mid - 1;
+            } else {
+                return edgeTargets[mid];
+            }
+        }
+        return NONE;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c);
+    }
+}
@@ -0,0 +1,186 @@
+package com.glsecurity.bot.filter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Detecta raids coordenados: o mesmo texto (ou quase o mesmo) enviado por várias contas diferentes em pouco tempo.
+ *
+ * <p>Cada mensagem vira uma impressão digital de 64 bits do conteúdo normalizado: só letras, em minúsculas,
+ * com repetições consecutivas colapsadas ("ENTRA NO MEU SERVIDOR!!! 123" e "entra no meu servidorrr" dão o
+ * mesmo valor). Cada servidor tem uma tabela fixa de {@value #SLOTS} impressões; cada entrada guarda o início
+ * da janela e um mapa de 64 bits dos usuários que enviaram aquele texto (um bit por hash de usuário), do qual
+ * se estima o número de usuários distintos por contagem linear. O custo por mensagem é uma passada sobre o
+ * texto e alguns hashes; a memória por servidor é constante (~1,5 KB).</p>
+ *
+ * <p>As mensagens de um servidor são processadas em ordem por uma única thread do ModerationExecutor, então a
+ * trava de cada tabela praticamente nunca é disputada. Tabelas de servidores sem mensagens há
+ * {@code IDLE_MILLIS} são removidas por uma varredura feita no próprio caminho de registro, no máximo uma vez
+ * por minuto (um mapa concorrente simples custa bem menos por consulta que um cache com expiração). A varredura
+ * confere a inatividade sob a trava da tabela e a marca como removida, e quem registra na tabela marcada busca
+ * a nova, então nenhuma mensagem é contada em uma tabela fora do mapa.</p>
+ */
+public class RaidDetector {
+
+    private static final int SLOTS = 64;
+    private static final int MAX_PROBES = 4;
+    private static final int MIN_NORMALIZED_LENGTH = 8; // Textos curtos ("oi", "kkk") se repetem naturalmente
+
+    private static final long IDLE_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    private static final long SWEEP_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final Map<Long, GuildTable> tables = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep = new AtomicLong();
+
+    // Impressões recentes de um servidor
+    private static final class GuildTable {
+        private final long[] fingerprints = new long[SLOTS];
+        private final long[] windowStarts = new long[SLOTS];
+        private final long[] userBits = new long[SLOTS];
+        private volatile long lastUsed;
+        private boolean removed; // Protegido pela trava da tabela
+    }
+
+    /**
+     * Registra uma mensagem e retorna quantos usuários distintos enviaram o mesmo conteúdo na janela.
+     * @param guildId O snowflake do servidor.
+     * @param userId O snowflake do autor.
+     * @param content O conteúdo bruto da mensagem.
+     * @param timestampMillis O horário da mensagem.
+     * @param windowMillis A duração da janela.
+     * @return A estimativa de usuários distintos (incluindo este), ou 0 se o texto for curto demais para comparar.
+     */
+    public int record(long guildId, long userId, CharSequence content, long timestampMillis, long windowMillis) {
+        long fingerprint = fingerprint(content);
+        if (fingerprint == 0) {
+            return 0;
+        }
+        long userBit = 1L << (mix(userId) >>> 58);
+
+        sweepIfDue(timestampMillis);
+        while (true) {
+            GuildTable table = tables.computeIfAbsent(guildId, id -> new GuildTable());
+            synchronized (table) {
+                if (table.removed) {
+                    continue; // A varredura tirou a tabela do mapa entre a consulta e a trava; pega a nova
+                }
+                table.lastUsed = timestampMillis;
+                return recordInTable(table, fingerprint, userBit, timestampMillis, windowMillis);
+            }
+        }
+    }
+
+    // Chamado com a trava da tabela
+    private static int recordInTable(GuildTable table, long fingerprint, long userBit, long timestampMillis, long windowMillis) {
+        int slot = findSlot(table, fingerprint, timestampMillis, windowMillis);
+        if (table.fingerprints[slot] != fingerprint || timestampMillis - table.windowStarts[slot] > windowMillis) {
+            // Entrada nova ou janela encerrada: recomeça a contagem
+            table.fingerprints[slot] = fingerprint;
+            table.windowStarts[slot] = timestampMillis;
+            table.userBits[slot] = 0;
+        }
+        table.userBits[slot] |= userBit;
+        return estimateDistinct(Long.bitCount(table.userBits[slot]));
+    }
+
+    // Remove as tabelas de servidores inativos; só uma thread varre por intervalo
+    private void sweepIfDue(long now) {
+        long last = lastSweep.get();
+        if (now - last < SWEEP_INTERVAL_MILLIS || !lastSweep.compareAndSet(last, now)) {
+            return;
+        }
+        for (Map.Entry<Long, GuildTable> entry : tables.entrySet()) {
+            GuildTable table = entry.getValue();
+            if (now - table.lastUsed <= IDLE_MILLIS) {
+                continue;
+            }
+            // Confere de novo sob a trava: um registro em andamento atualiza lastUsed antes de escrever
+            synchronized (table) {
+                if (now - table.lastUsed > IDLE_MILLIS && tables.remove(entry.getKey(), table)) {
+                    table.removed = true;
+                }
+            }
+        }
+    }
+
+    // A entrada da impressão, ou a primeira expirada, ou a mais antiga da vizinhança
+    private static int findSlot(GuildTable table, long fingerprint, long now, long windowMillis) {
+        int start = (int) (fingerprint >>> 32) & (SLOTS - 1);
+        int oldest = start;
+        int free = -1;
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int slot = (start + probe) & (SLOTS - 1);
+            if (table.fingerprints[slot] == fingerprint) {
+                return slot;
+            }
+            if (free < 0 && (table.fingerprints[slot] == 0 || now - table.windowStarts[slot] > windowMillis)) {
+                free = slot;
+            }
+            if (table.windowStarts[slot] < table.windowStarts[oldest]) {
+                oldest = slot;
+            }
+        }
+        return free >= 0 ? free : oldest;
+    }
+
+    // Contagem linear: corrige as colisões de bits quando o mapa começa a encher
+    private static int estimateDistinct(int bitsSet) {
+        if (bitsSet >= 64) {
+            return 64 * 4; // Saturado: muito acima de qualquer limite configurado
+        }
+        return (int) Math.round(-64 * Math.log(1 - bitsSet / 64.0));
+    }
+
+    /**
+     * Calcula a impressão digital do conteúdo normalizado (FNV-1a de 64 bits).
+     * @return A impressão, ou 0 se o texto normalizado tiver menos de {@value #MIN_NORMALIZED_LENGTH} letras.
+     */
+    static long fingerprint(CharSequence content) {
+        long hash = 0xcbf29ce484222325L;
+        int length = 0;
+        char previous = 0;
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (c < 128) {
+                if (c >= 'A' && c <= 'Z') {
+                    c = (char) (c + ('a' - 'A'));
+                } else if (c < 'a' || c > 'z') {
+                    continue; // Espaços, pontuação e dígitos não mudam a impressão
+                }
+            } else if (Character.isLetter(c)) {
+                c = Character.toLowerCase(c);
+            } else {
+                continue; // Emojis (pares substitutos) e símbolos
+            }
+            if (c == previous) {
+                continue;
+            }
+            previous = c;
+            hash = (hash ^ c) * 0x100000001b3L;
+            length++;
+        }
+        if (length < MIN_NORMALIZED_LENGTH) {
+            return 0;
+        }
+        hash = mix(hash);
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * @return Número de servidores com tabela em memória.
+     */
+    public int size() {
+        return tables.size();
+    }
+}
@@ -0,0 +1,41 @@
+package com.glsecurity.bot.listener;
+
+import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Role;
+
+/**
+ * Verificação de permissões de servidor pelos bitsets dos cargos.
+ *
+ * <p>O JDA mantém os cargos de cada servidor em cache em qualquer perfil, cada um com suas permissões em um
+ * {@code long}. A permissão de servidor de um membro é o OU desses bitsets (o do @everyone mais os dos seus
+ * cargos); ADMINISTRATOR ou ser dono do servidor concede tudo. Não depende do cache de membros, do chunking
+ * nem das permissões por canal, então funciona com o autor montado do próprio evento de mensagem no perfil
+ * {@link com.glsecurity.bot.config.CacheProfile#LEAN}, sem criar EnumSets a cada mensagem.</p>
+ */
+public final class RolePermissions {
+
+    private static final long ADMINISTRATOR = Permission.ADMINISTRATOR.getRawValue();
+
+    private RolePermissions() {
+    }
+
+    /**
+     * @return true se o membro tem a permissão no servidor (ignora as permissões por canal).
+     */
+    public static boolean hasGuildPermission(Member member, Permission permission) {
+        if (member.isOwner()) {
+            return true;
+        }
+        long required = permission.getRawValue() | ADMINISTRATOR;
+        if ((member.getGuild().getPublicRole().getPermissionsRaw() & required) != 0) {
+            return true;
+        }
+        for (Role role : member.getRoles()) {
+            if ((role.getPermissionsRaw() & required) != 0) {
+                return true; // Para no primeiro cargo que concede; o caso comum de moderador resolve no topo da lista
+            }
+        }
+        return false;
+    }
+}
@@ -2,6 +2,9 @@ package com.glsecurity.bot.model;
 
 import jakarta.persistence.*;
 
+import java.util.Collections;
+import java.util.List;
+
 @Entity
 @Table(name = "server_settings")
 public class ServerSettings {
@@ -34,6 +37,47 @@ public class ServerSettings {
     @Column(name = "log_violations", nullable = false)
     private boolean logViolations;
 
+    // Colunas adicionadas depois: o DEFAULT permite ao hbm2ddl incluí-las em tabelas existentes do SQLite
+    @Column(name = "block_flood", nullable = false, columnDefinition = "boolean default 1 not null")
+    private boolean blockFlood;
+
+    @Column(name = "flood_max_messages", nullable = false, columnDefinition = "integer default 10 not null")
+    private int floodMaxMessages; // Máximo de mensagens por usuário dentro da janela
+
+    @Column(name = "flood_window_seconds", nullable = false, columnDefinition = "integer default 5 not null")
+    private int floodWindowSeconds;
+
+    @Column(name = "block_raids", nullable = false, columnDefinition = "boolean default 0 not null")
+    private boolean blockRaids; // Desligado por padrão: mensagens em coro ("bom dia pessoal") também se repetem
+
+    @Column(name = "raid_min_users", nullable = false, columnDefinition = "integer default 5 not null")
+    private int raidMinUsers; // Usuários distintos com o mesmo texto para caracterizar raid
+
+    @Column(name = "raid_window_seconds", nullable = false, columnDefinition = "integer default 30 not null")
+    private int raidWindowSeconds;
+
+    // Palavras do servidor somadas ao dicionário global, e palavras globais que o servidor não quer bloquear
+    @Convert(converter = StringListConverter.class)
+    @Column(name = "custom_words", nullable = false, columnDefinition = "text default '' not null")
+    private List<String> customWords;
+
+    @Convert(converter = StringListConverter.class)
+    @Column(name = "exempt_words", nullable = false, columnDefinition = "text default '' not null")
+    private List<String> exemptWords;
+
+    // Domínios liberados mesmo com blockLinks ligado, e domínios sempre bloqueados ("*.exemplo.com" só subdomínios)
+    @Convert(converter = StringListConverter.class)
+    @Column(name = "allowed_domains", nullable = false, columnDefinition = "text default '' not null")
+    private List<String> allowedDomains;
+
+    @Convert(converter = StringListConverter.class)
+    @Column(name = "blocked_domains", nullable = false, columnDefinition = "text default '' not null")
+    private List<String> blockedDomains;
+
+    // Dias que as violações ficam no banco antes de irem para o arquivo morto (0 = prazo global, negativo = guardar tudo)
+    @Column(name = "retention_days", nullable = false, columnDefinition = "integer default 0 not null")
+    private int retentionDays;
+
     // Construtor padrão exigido pelo JPA
     public ServerSettings() {
         // Inicializa com valores padrão sensatos
@@ -45,6 +89,17 @@ public class ServerSettings {
         this.autoDeleteWarnings = true;
         this.warningDeleteDelay = 60;
         this.logViolations = true;
+        this.blockFlood = true;
+        this.floodMaxMessages = 10;
+        this.floodWindowSeconds = 5;
+        this.blockRaids = false;
+        this.raidMinUsers = 5;
+        this.raidWindowSeconds = 30;
+        this.customWords = Collections.emptyList();
+        this.exemptWords = Collections.emptyList();
+        this.allowedDomains = Collections.emptyList();
+        this.blockedDomains = Collections.emptyList();
+        this.retentionDays = 0;
     }
 
     // Construtor para criar uma nova configuração com ID de servidor
@@ -126,6 +181,94 @@ public class ServerSettings {
         this.logViolations = logViolations;
     }
 
+    public boolean isBlockFlood() {
+        return blockFlood;
+    }
+
+    public void setBlockFlood(boolean blockFlood) {
+        this.blockFlood = blockFlood;
+    }
+
+    public int getFloodMaxMessages() {
+        return floodMaxMessages;
+    }
+
+    public void setFloodMaxMessages(int floodMaxMessages) {
+        this.floodMaxMessages = floodMaxMessages;
+    }
+
+    public int getFloodWindowSeconds() {
+        return floodWindowSeconds;
+    }
+
+    public void setFloodWindowSeconds(int floodWindowSeconds) {
+        this.floodWindowSeconds = floodWindowSeconds;
+    }
+
+    public boolean isBlockRaids() {
+        return blockRaids;
+    }
+
+    public void setBlockRaids(boolean blockRaids) {
+        this.blockRaids = blockRaids;
+    }
+
+    public int getRaidMinUsers() {
+        return raidMinUsers;
+    }
+
+    public void setRaidMinUsers(int raidMinUsers) {
+        this.raidMinUsers = raidMinUsers;
+    }
+
+    public int getRaidWindowSeconds() {
+        return raidWindowSeconds;
+    }
+
+    public void setRaidWindowSeconds(int raidWindowSeconds) {
+        this.raidWindowSeconds = raidWindowSeconds;
+    }
+
+    public List<String> getCustomWords() {
+        return customWords;
+    }
+
+    public void setCustomWords(List<String> customWords) {
+        this.customWords = customWords == null ? Collections.emptyList() : List.copyOf(customWords);
+    }
+
+    public List<String> getExemptWords() {
+        return exemptWords;
+    }
+
+    public void setExemptWords(List<String> exemptWords) {
+        this.exemptWords = exemptWords == null ? Collections.emptyList() : List.copyOf(exemptWords);
+    }
+
+    public List<String> getAllowedDomains() {
+        return allowedDomains;
+    }
+
+    public void setAllowedDomains(List<String> allowedDomains) {
+        this.allowedDomains = allowedDomains == null ? Collections.emptyList() : List.copyOf(allowedDomains);
+    }
+
+    public List<String> getBlockedDomains() {
+        return blockedDomains;
+    }
+
+    public void setBlockedDomains(List<String> blockedDomains) {
+        this.blockedDomains = blockedDomains == null ? Collections.emptyList() : List.copyOf(blockedDomains);
+    }
+
+    public int getRetentionDays() {
+        return retentionDays;
+    }
+
+    public void setRetentionDays(int retentionDays) {
+        this.retentionDays = retentionDays;
+    }
+
     @Override
     public String toString() {
         return "ServerSettings{" +
@@ -138,6 +281,17 @@ public class ServerSettings {
                ", autoDeleteWarnings=" + autoDeleteWarnings +
                ", warningDeleteDelay=" + warningDeleteDelay +
                ", logViolations=" + logViolations +
+               ", blockFlood=" + blockFlood +
+               ", floodMaxMessages=" + floodMaxMessages +
+               ", floodWindowSeconds=" + floodWindowSeconds +
+               ", blockRaids=" + blockRaids +
+               ", raidMinUsers=" + raidMinUsers +
+               ", raidWindowSeconds=" + raidWindowSeconds +
+               ", customWords=" + customWords.size() +
+               ", exemptWords=" + exemptWords.size() +
+               ", allowedDomains=" + allowedDomains.size() +
+               ", blockedDomains=" + blockedDomains.size() +
+               ", retentionDays=" + retentionDays +
                '}';
     }
 }
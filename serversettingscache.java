@@ -0,0 +1,98 @@
+package com.glsecurity.bot.dao;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.glsecurity.bot.model.ServerSettings;
+
+import java.util.function.Function;
+
+/**
+ * Cache limitado e concorrente das configurações por servidor, usado na frente do DatabaseManager.
+ * Depois do primeiro carregamento, a leitura de um servidor é apenas uma consulta em memória.
+ * A política de remoção é W-TinyLFU (frequência + recência), do Caffeine.
+ */
+public class ServerSettingsCache {
+
+    private final Cache<String, ServerSettings> cache;
+
+    public ServerSettingsCache(long maximumSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Retorna as configurações em cache ou as carrega uma única vez, mesmo com várias threads
+     * pedindo o mesmo servidor ao mesmo tempo. Se o loader retornar null, nada é guardado.
+     */
+    public ServerSettings get(String serverId, Function<String, ServerSettings> loader) {
+        return cache.get(serverId, loader);
+    }
+
+    /**
+     * Publica configurações já gravadas no banco. Leituras concorrentes não esperam: veem o valor anterior até a troca.
+     */
+    public void put(String serverId, ServerSettings settings) {
+        cache.put(serverId, settings);
+    }
+
+    /**
+     * Guarda configurações carregadas em lote, sem sobrescrever uma entrada já carregada ou gravada.
+     * @return true se a entrada foi guardada.
+     */
+    public boolean putIfAbsent(String serverId, ServerSettings settings) {
+        return cache.asMap().putIfAbsent(serverId, settings) == null;
+    }
+
+    /**
+     * @return As configurações em cache, ou null sem carregar nada.
+     */
+    public ServerSettings getIfPresent(String serverId) {
+        return cache.getIfPresent(serverId);
+    }
+
+    /**
+     * @return true se o servidor já está em cache (sem contar como acerto ou falha).
+     */
+    public boolean contains(String serverId) {
+        return cache.asMap().containsKey(serverId);
+    }
+
+    public void invalidate(String serverId) {
+        cache.invalidate(serverId);
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public long hitCount() {
+        return cache.stats().hitCount();
+    }
+
+    public long missCount() {
+        return cache.stats().missCount();
+    }
+
+    public long evictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @Override
+    public String toString() {
+        CacheStats stats = cache.stats();
+        return "ServerSettingsCache{" +
+               "size=" + cache.estimatedSize() +
+               ", hits=" + stats.hitCount() +
+               ", misses=" + stats.missCount() +
+               ", evictions=" + stats.evictionCount() +
+               ", hitRate=" + String.format("%.3f", stats.hitRate()) +
+               '}';
+    }
+}
@@ -0,0 +1,130 @@
+package com.glsecurity.bot.listener;
+
+import com.glsecurity.bot.metrics.Counter;
+import com.glsecurity.bot.metrics.MetricsRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Um {@link ModerationExecutor} por shard do gateway.
+ *
+ * <p>Cada servidor pertence a um único shard, então a ordem das mensagens de um servidor continua garantida
+ * pela faixa do executor do seu shard. Separar os executores evita que um shard com rajada de mensagens
+ * (um raid em um servidor grande) encha as filas dos demais, e deixa profundidade de fila e rejeições
+ * visíveis por shard. Sem sharding há um único executor, o do shard 0.</p>
+ *
+ * <p>Os executores são criados na primeira mensagem de cada shard: com {@code shard_count = -1} a quantidade
+ * de shards só é conhecida depois do login, quando o Discord informa a recomendada.</p>
+ */
+public class ShardedModerationExecutor {
+
+    private final int lanesPerShard;
+    private final int queueCapacity;
+    private final long submitTimeoutMillis;
+    private final MetricsRegistry registry;
+    private final Map<Integer, Shard> shards = new ConcurrentHashMap<>();
+    private volatile boolean running = true;
+
+    private static final class Shard {
+        private final ModerationExecutor executor;
+        private final Counter messages;
+
+        private Shard(ModerationExecutor executor, Counter messages) {
+            this.executor = executor;
+            this.messages = messages;
+        }
+    }
+
+    /**
+     * @param lanesPerShard Threads de moderação de cada shard.
+     * @param queueCapacity Capacidade da fila de cada thread.
+     * @param submitTimeoutMillis Espera máxima por espaço na fila antes de rejeitar a mensagem.
+     * @param registry Registro onde as métricas por shard são publicadas.
+     */
+    public ShardedModerationExecutor(int lanesPerShard, int queueCapacity, long submitTimeoutMillis, MetricsRegistry registry) {
+        this.lanesPerShard = lanesPerShard;
+        this.queueCapacity = queueCapacity;
+        this.submitTimeoutMillis = submitTimeoutMillis;
+        this.registry = registry;
+    }
+
+    /**
+     * Enfileira a moderação de uma mensagem no executor do shard que a recebeu.
+     * @param shardId O shard da sessão que entregou o evento.
+     * @param guildId O ID do servidor; define a faixa dentro do shard.
+     * @param task A tarefa de moderação.
+     * @return false se a tarefa foi rejeitada por fila cheia ou pelo desligamento.
+     */
+    public boolean submit(int shardId, long guildId, Runnable task) {
+        Shard shard = shards.get(shardId);
+        if (shard == null) {
+            if (!running) {
+                return false;
+            }
+            shard = shards.computeIfAbsent(shardId, this::createShard);
+        }
+        shard.messages.increment();
+        return shard.executor.submit(guildId, task);
+    }
+
+    private Shard createShard(int shardId) {
+        String label = Integer.toString(shardId);
+        ModerationExecutor executor = new ModerationExecutor("moderation-" + shardId + "-", lanesPerShard, queueCapacity, submitTimeoutMillis);
+        registry.gauge("glsecurity_shard_moderation_queue_depth", "Mensagens aguardando moderação por shard.", "gauge",
+                executor::getQueueDepth, "shard", label);
+        registry.gauge("glsecurity_shard_moderation_rejected_total", "Mensagens ignoradas por fila cheia, por shard.", "counter",
+                executor::getRejected, "shard", label);
+        Counter messages = registry.counter("glsecurity_shard_messages_total", "Mensagens de servidores recebidas por shard.", "shard", label);
+        return new Shard(executor, messages);
+    }
+
+    /**
+     * @return O executor do shard, ou null se o shard ainda não recebeu mensagens.
+     */
+    public ModerationExecutor forShard(int shardId) {
+        Shard shard = shards.get(shardId);
+        return shard != null ? shard.executor : null;
+    }
+
+    /**
+     * @return O total de mensagens aguardando em todos os shards.
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (Shard shard : shards.values()) {
+            depth += shard.executor.getQueueDepth();
+        }
+        return depth;
+    }
+
+    public long getRejected() {
+        long total = 0;
+        for (Shard shard : shards.values()) {
+            total += shard.executor.getRejected();
+        }
+        return total;
+    }
+
+    /**
+     * @return Número de shards com executor criado.
+     */
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    /**
+     * Para de aceitar mensagens em todos os shards e espera as filas esvaziarem em paralelo.
+     * @param timeoutMillis Espera máxima total.
+     */
+    public void shutdown(long timeoutMillis) {
+        running = false;
+        for (Shard shard : shards.values()) {
+            shard.executor.stopAccepting();
+        }
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        for (Shard shard : shards.values()) {
+            shard.executor.awaitTermination(deadline);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.glsecurity.bot.benchmark;
+
+import com.glsecurity.bot.config.BotConfig;
+import com.glsecurity.bot.dao.ServerSettingsCache;
+import com.glsecurity.bot.filter.ContentScanner;
+import com.glsecurity.bot.filter.ProfanityMatcher;
+import com.glsecurity.bot.filter.TextNormalizer;
+import com.glsecurity.bot.listener.ModerationPolicy;
+import com.glsecurity.bot.model.ServerSettings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Benchmarks JMH da lógica de decisão do MessageListener, isolada do JDA: normalização do texto, palavras
+ * ofensivas, links, convites, decisão completa e consulta das configurações do servidor. Os métodos "legacy"
+ * reproduzem o código antigo (laço de contains e expressões regulares) como referência.
+ *
+ * <p>Cada corpus é um conjunto fixo de mensagens gerado com semente constante, percorrido em ciclo:
+ * <ul>
+ *     <li>{@code CLEAN_CHAT}: mensagens curtas de conversa, cerca de 1 em 10 com uma violação;</li>
+ *     <li>{@code LONG}: mensagens perto do limite de 2000 caracteres do Discord;</li>
+ *     <li>{@code EMOJI}: mensagens com muitos emojis (pares substitutos UTF-16);</li>
+ *     <li>{@code ADVERSARIAL}: entradas que quase casam os padrões de URL e convite várias vezes.</li>
+ * </ul></p>
+ *
+ * Execute com:
+ * <pre>
+ * mvn -Pjmh package
+ * java -jar target/discord-bot-1.0-SNAPSHOT-benchmarks.jar ModerationBenchmark -prof gc
+ * </pre>
+ * O profiler {@code gc} informa a taxa de alocação ({@code gc.alloc.rate.norm}, em bytes por operação)
+ * ao lado de ops/s; compare os dois números antes e depois de qualquer mudança no listener.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModerationBenchmark {
+
+    private static final int CORPUS_SIZE = 512; // Potência de 2 para o ciclo com máscara
+    private static final int SERVER_COUNT = 1_000;
+
+    // Expressões regulares do MessageListener antes do ContentScanner
+    private static final String LEGACY_URL_REGEX = "(http|https)://[a-zA-Z0-9\\-.]+\\.[a-zA-Z]{2,3}(/\\S*)?";
+    private static final Pattern LEGACY_INVITE_PATTERN = Pattern.compile(
+            "(?:https?://)?(?:www\\.)?(?:discord\\.(?:gg|io|me|li)|discordapp\\.com/invite|discord\\.com/invite)/([a-zA-Z0-9]+)"
+    );
+
+    private static final String[] CHAT = {
+            "bom dia pessoal, alguém vai jogar hoje à noite?",
+            "acabei de ver o trailer novo, ficou muito bom",
+            "quem quiser entrar na call é só chamar",
+            "esse servidor tá muito organizado, parabéns aos mods",
+            "alguém sabe como configurar o bot de música?",
+            "kkkkkkk não acredito que isso aconteceu",
+            "vou sair agora, até amanhã galera",
+            "alguém tem o link da planilha de horários?",
+            "gg, partida boa demais",
+            "to sem microfone hoje, vou ficar só no chat"
+    };
+
+    private static final String[] VIOLATIONS = {
+            "isso aqui é um lixo, sério",
+            "olha isso https://example.com/promo/oferta?id=123",
+            "entra no meu servidor discord.gg/AbCdEf12",
+            "https://discord.com/invite/Xyz987 tem sorteio lá"
+    };
+
+    private static final String[] EMOJIS = {
+            "😂", "🔥", "👍", "❤️", "🎮",
+            "😎", "🤣", "💀", "🎉", "🙏"
+    };
+
+    public enum Corpus {
+        CLEAN_CHAT, LONG, EMOJI, ADVERSARIAL
+    }
+
+    @Param
+    public Corpus corpus;
+
+    private String[] messages;
+    private String[] loweredMessages;
+    private String[] serverIds;
+    private int cursor;
+
+    private List<String> profaneWords;
+    private ProfanityMatcher profanityMatcher;
+    private final ContentScanner contentScanner = new ContentScanner();
+    private final ModerationPolicy moderationPolicy = new ModerationPolicy();
+    private final Predicate<String> noOwnInvites = code -> false;
+    private ServerSettings settings;
+    private ServerSettingsCache settingsCache;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        profaneWords = BotConfig.getProfaneWords();
+        profanityMatcher = BotConfig.getProfanityMatcher();
+        settings = new ServerSettings("benchmark");
+
+        Random random = new Random(42);
+        messages = new String[CORPUS_SIZE];
+        loweredMessages = new String[CORPUS_SIZE];
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            messages[i] = generate(random);
+            loweredMessages[i] = messages[i].toLowerCase();
+        }
+
+        // Cache já aquecido: mede o caminho comum (acerto), não o carregamento do banco
+        settingsCache = new ServerSettingsCache(SERVER_COUNT * 2L);
+        serverIds = new String[SERVER_COUNT];
+        for (int i = 0; i < SERVER_COUNT; i++) {
+            serverIds[i] = String.valueOf(100_000_000_000_000_000L + random.nextInt(Integer.MAX_VALUE));
+            settingsCache.get(serverIds[i], ServerSettings::new);
+        }
+    }
+
+    private String generate(Random random) {
+        switch (corpus) {
+            case CLEAN_CHAT:
+                return random.nextInt(10) == 0
+                        ? VIOLATIONS[random.nextInt(VIOLATIONS.length)]
+                        : CHAT[random.nextInt(CHAT.length)];
+            case LONG: {
+                StringBuilder sb = new StringBuilder(2_000);
+                while (sb.length() < 1_900) {
+                    sb.append(CHAT[random.nextInt(CHAT.length)]).append(' ');
+                }
+                if (random.nextInt(10) == 0) sb.append(VIOLATIONS[random.nextInt(VIOLATIONS.length)]);
+                return sb.toString();
+            }
+            case EMOJI: {
+                StringBuilder sb = new StringBuilder();
+                sb.append(CHAT[random.nextInt(CHAT.length)]).append(' ');
+                int count = 10 + random.nextInt(40);
+                for (int i = 0; i < count; i++) {
+                    sb.append(EMOJIS[random.nextInt(EMOJIS.length)]);
+                    if (random.nextInt(4) == 0) sb.append(' ');
+                }
+                return sb.toString();
+            }
+            case ADVERSARIAL: {
+                // Prefixos que quase formam URLs/convites, hosts longos sem domínio de topo e repetições
+                StringBuilder sb = new StringBuilder(2_000);
+                while (sb.length() < 1_900) {
+                    switch (random.nextInt(4)) {
+                        case 0:
+                            sb.append("http://");
+                            for (int i = 0; i < 60; i++) sb.append("a-");
+                            sb.append(' ');
+                            break;
+                        case 1:
+                            sb.append("discord.g discord.com/invit discordapp.com/ ");
+                            break;
+                        case 2:
+                            for (int i = 0; i < 40; i++) sb.append("a.");
+                            sb.append("1 ");
+                            break;
+                        default:
+                            sb.append("httphttphttps:/https:").append(' ');
+                            break;
+                    }
+                }
+                return sb.toString();
+            }
+            default:
+                throw new IllegalStateException("Corpus desconhecido: " + corpus);
+        }
+    }
+
+    private int next() {
+        int index = cursor;
+        cursor = (index + 1) & (CORPUS_SIZE - 1);
+        return index;
+    }
+
+    // --- Caminho atual ---
+
+    @Benchmark
+    public Object profanityMatcher() {
+        return profanityMatcher.findFirst(messages[next()]);
+    }
+
+    @Benchmark
+    public int textNormalizer() {
+        return TextNormalizer.normalize(messages[next()]).length();
+    }
+
+    @Benchmark
+    public int linkScan() {
+        return contentScanner.scan(messages[next()], (ProfanityMatcher) null, true, false).size();
+    }
+
+    @Benchmark
+    public int inviteScan() {
+        return contentScanner.scan(messages[next()], (ProfanityMatcher) null, false, true).size();
+    }
+
+    @Benchmark
+    public int fullScan() {
+        return contentScanner.scan(messages[next()], profanityMatcher, true, true).size();
+    }
+
+    @Benchmark
+    public Object fullDecision() {
+        return moderationPolicy.evaluate(messages[next()], settings, noOwnInvites);
+    }
+
+    @Benchmark
+    public Object settingsLookup() {
+        return settingsCache.get(serverIds[next() % SERVER_COUNT], ServerSettings::new);
+    }
+
+    // --- Referências: código antigo do MessageListener ---
+
+    @Benchmark
+    public void legacyProfanityContains(Blackhole blackhole) {
+        String content = messages[next()].toLowerCase();
+        for (String word : profaneWords) {
+            if (content.contains(word)) {
+                blackhole.consume(word);
+                return;
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean legacyLinkRegex() {
+        // O código antigo compilava a expressão a cada mensagem
+        return Pattern.compile(LEGACY_URL_REGEX).matcher(loweredMessages[next()]).find();
+    }
+
+    @Benchmark
+    public Object legacyInviteRegex() {
+        Matcher matcher = LEGACY_INVITE_PATTERN.matcher(loweredMessages[next()]);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+}
@@ -0,0 +1,41 @@
+package com.glsecurity.bot.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Guarda uma lista de palavras em uma única coluna de texto, uma por linha.
+ * A lista lida do banco é imutável; para alterá-la, atribua uma nova lista à entidade.
+ */
+@Converter
+public class StringListConverter implements AttributeConverter<List<String>, String> {
+
+    @Override
+    public String convertToDatabaseColumn(List<String> words) {
+        return words == null ? "" : String.join("\n", words);
+    }
+
+    @Override
+    public List<String> convertToEntityAttribute(String column) {
+        return parse(column);
+    }
+
+    /**
+     * Separa um texto em palavras, uma por linha (vírgulas também são aceitas), sem espaços nas pontas e sem itens vazios.
+     */
+    public static List<String> parse(String text) {
+        if (text == null || text.isBlank()) {
+            return Collections.emptyList();
+        }
+        List<String> words = new ArrayList<>();
+        for (String word : text.split("[\\n,]")) {
+            String trimmed = word.trim();
+            if (!trimmed.isEmpty() && !words.contains(trimmed)) words.add(trimmed);
+        }
+        return Collections.unmodifiableList(words);
+    }
+}
@@ -0,0 +1,290 @@
+package com.glsecurity.bot.filter;
+
+import java.text.Normalizer;
+
+/**
+ * Normaliza o texto antes da busca de palavras ofensivas, para que variações como "P0RR4", "f.d.p",
+ * letras de largura total ("ｌｉｘｏ"), letras cirílicas parecidas com latinas ou "desgraca"/"desgraça"
+ * caiam no mesmo termo do dicionário.
+ *
+ * <p>Cada caractere passa por uma tabela de 64K posições calculada uma única vez: minúsculas, remoção de
+ * acentos, largura total para ASCII, confusíveis (cirílico e grego) e leetspeak ({@code 0→o, 1→i, 3→e,
+ * 4→a, 5→s, 7→t, @→a, $→s}). Marcas combinantes e caracteres invisíveis (espaço de largura zero,
+ * hífen suave) são descartados, e qualquer sequência de espaços vira um só espaço. Pontuação e espaços entre
+ * letras isoladas são colapsados ("f.d.p", "p-o-r-r-a" e "l i x o" viram "fdp", "porra" e "lixo"), mas só
+ * dentro de uma sequência de letras isoladas: uma palavra de uma letra não gruda na seguinte ("a.lixo" e
+ * "a lixo" seguem com duas palavras).</p>
+ *
+ * <p>Dígitos colados a uma palavra também são mapeados como leetspeak, mas {@link NormalizedText#isDigitSuffix} e
+ * {@link NormalizedText#isDigitPrefix} permitem que o matcher os trate como limite de palavra: "lixo1" vira
+ * "lixoi" e ainda encontra "lixo".</p>
+ *
+ * <p>O resultado é escrito em um buffer reaproveitado por thread, com um mapa de posições de volta para o
+ * texto original, então uma mensagem não aloca nada e o achado continua apontando para os caracteres reais.
+ * Todo caractere é mapeado para no máximo um caractere, então o texto normalizado nunca é maior que o original.</p>
+ */
+public final class TextNormalizer {
+
+    private static final char DROP = '\uFFFF';      // Descartado sem deixar rastro
+    private static final char SEPARATOR = '\uFFFE'; // Pontuação que pode ser colapsada entre letras isoladas
+
+    private static final int INITIAL_CAPACITY = 2_048; // Cobre o limite de 2000 caracteres do Discord
+    private static final int TERM_CAPACITY = 64;        // Termos do dicionário; cresce se aparecer um maior
+
+    private static final char[] TABLE = buildTable();
+    private static final boolean[] WORD_CHARS = buildWordChars(); // Letra ou dígito, indexado pelo caractere já mapeado
+
+    private static final ThreadLocal<NormalizedText> BUFFERS = ThreadLocal.withInitial(() -> new NormalizedText(INITIAL_CAPACITY));
+    // Separado do das mensagens: um dicionário pode ser compilado enquanto o texto normalizado de uma mensagem está em uso
+    private static final ThreadLocal<NormalizedText> TERM_BUFFERS = ThreadLocal.withInitial(() -> new NormalizedText(TERM_CAPACITY));
+
+    private TextNormalizer() {
+    }
+
+    /**
+     * Normaliza o texto no buffer da thread atual.
+     * O resultado só é válido até a próxima chamada de normalize nessa thread.
+     * @param text O texto bruto.
+     * @return O texto normalizado, com o mapa de posições para o original.
+     */
+    public static NormalizedText normalize(CharSequence text) {
+        NormalizedText normalized = BUFFERS.get();
+        normalized.fill(text);
+        return normalized;
+    }
+
+    /**
+     * Normaliza um termo do dicionário da mesma forma que as mensagens (usado na compilação do matcher).
+     * @param term O termo como está na configuração.
+     * @return O termo normalizado, sem espaços nas pontas.
+     */
+    public static String normalizeTerm(String term) {
+        NormalizedText normalized = TERM_BUFFERS.get(); // Só a String do resultado é alocada por termo
+        normalized.fill(term.trim());
+        return normalized.toString().trim();
+    }
+
+    /**
+     * Texto normalizado: um {@link CharSequence} sobre o buffer da thread, com a posição original de cada caractere.
+     */
+    public static final class NormalizedText implements CharSequence {
+        private CharSequence source;
+        private char[] chars;
+        private int[] offsets;
+        private int length;
+
+        private NormalizedText(int capacity) {
+            chars = new char[capacity];
+            offsets = new int[capacity + 1];
+        }
+
+        private void fill(CharSequence text) {
+            int sourceLength = text.length();
+            if (sourceLength >= chars.length) {
+                int capacity = Math.max(sourceLength, chars.length * 2);
+                chars = new char[capacity];
+                offsets = new int[capacity + 1];
+            }
+            source = text;
+            length = 0;
+
+            int segment = 0;        // Caracteres de palavra desde o último espaço ou pontuação
+            int separatorAt = -1;   // Início da pontuação pendente no texto original
+            for (int i = 0; i < sourceLength; i++) {
+                char c = text.charAt(i);
+                char mapped = TABLE[c];
+                if (mapped == DROP) {
+                    continue;
+                }
+                if (mapped == SEPARATOR) {
+                    if (separatorAt < 0) separatorAt = i;
+                    continue;
+                }
+                if (mapped == ' ') {
+                    if (separatorAt < 0) separatorAt = i; // Espaços ficam pendentes como a pontuação
+                    continue;
+                }
+                boolean wordChar = WORD_CHARS[mapped];
+                if (separatorAt >= 0) {
+                    // Letra isolada + separadores + letra isolada: "f.d.p" vira "fdp"; senão os separadores são mantidos
+                    if (segment != 1 || !wordChar || !isSingleAt(text, i)) {
+                        appendSeparators(text, separatorAt, i);
+                    }
+                    segment = 0;
+                    separatorAt = -1;
+                }
+                append(mapped, i);
+                segment = wordChar ? segment + 1 : 0;
+            }
+            if (separatorAt >= 0) {
+                appendSeparators(text, separatorAt, sourceLength);
+            }
+            offsets[length] = sourceLength;
+        }
+
+        // Mantém a pontuação original (descartando os invisíveis no meio dela); sequências de espaços viram um só
+        private void appendSeparators(CharSequence text, int from, int to) {
+            for (int j = from; j < to; j++) {
+                char c = text.charAt(j);
+                char mapped = TABLE[c];
+                if (mapped == SEPARATOR) {
+                    append(c, j);
+                } else if (mapped == ' ' && (length == 0 || chars[length - 1] != ' ')) {
+                    append(' ', j);
+                }
+            }
+        }
+
+        // A letra em index forma sozinha um segmento (o próximo caractere visível não é letra nem dígito)
+        private static boolean isSingleAt(CharSequence text, int index) {
+            for (int j = index + 1; j < text.length(); j++) {
+                char mapped = TABLE[text.charAt(j)];
+                if (mapped != DROP) return !WORD_CHARS[mapped];
+            }
+            return true;
+        }
+
+        /**
+         * @return true se, a partir de {@code index}, o resto da palavra normalizada veio só de dígitos ASCII no
+         * original ("lixo1", "lixo2024"). O matcher trata esses dígitos como limite de palavra, já que o
+         * leetspeak de uma palavra inteira ("p0rr4") é encontrado sem precisar deles.
+         */
+        public boolean isDigitSuffix(int index) {
+            if (index >= length || !WORD_CHARS[chars[index]]) return false;
+            for (int j = index; j < length && WORD_CHARS[chars[j]]; j++) {
+                if (!isOriginalDigit(j)) return false;
+            }
+            return true;
+        }
+
+        /**
+         * @return true se o começo da palavra normalizada até {@code index} (exclusivo) veio só de dígitos ASCII
+         * no original ("1lixo"); o equivalente de {@link #isDigitSuffix} para o início de uma ocorrência.
+         */
+        public boolean isDigitPrefix(int index) {
+            if (index <= 0 || !WORD_CHARS[chars[index - 1]]) return false;
+            for (int j = index - 1; j >= 0 && WORD_CHARS[chars[j]]; j--) {
+                if (!isOriginalDigit(j)) return false;
+            }
+            return true;
+        }
+
+        private boolean isOriginalDigit(int index) {
+            char original = source.charAt(offsets[index]);
+            return original >= '0' && original <= '9';
+        }
+
+        private void append(char c, int sourceIndex) {
+            chars[length] = c;
+            offsets[length] = sourceIndex;
+            length++;
+        }
+
+        /**
+         * @return A posição no texto original do caractere normalizado {@code index}; {@code length()} mapeia
+         * para o fim do original.
+         */
+        public int originalOffset(int index) {
+            return offsets[index];
+        }
+
+        /**
+         * @return O texto original que foi normalizado.
+         */
+        public CharSequence source() {
+            return source;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index >= length) throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+            return chars[index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(chars, start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars, 0, length);
+        }
+    }
+
+    // --- Tabela de mapeamento ---
+
+    private static char[] buildTable() {
+        char[] table = new char[Character.MAX_VALUE + 1];
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            table[c] = baseOf((char) c);
+        }
+
+        // Pontuação usada para separar letras ("f.d.p", "p-o-r-r-a", "l_i_x_o")
+        for (char c : ".,-_*'\"`~|/\\+=^:;·•‐‑‒–—".toCharArray()) {
+            table[c] = SEPARATOR;
+        }
+
+        // Leetspeak
+        map(table, "013457@$", "oieastas");
+
+        // Confusíveis cirílicos e gregos (já em minúsculas)
+        map(table, "авеёкмнорстухіјѕ",
+                "abeekmhopctyxijs");
+        map(table, "αβεικνορτυχ",
+                "abeikvoptux");
+
+        // Largura total (U+FF01..U+FF5E) segue o mesmo mapeamento do ASCII correspondente
+        for (char c = '！'; c <= '～'; c++) {
+            table[c] = table[c - 0xFEE0];
+        }
+
+        // Um passo de encadeamento: maiúsculas e acentuados herdam o mapeamento de sua base ("А" → "а" → "a")
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            char base = table[c];
+            if (base != c && base != DROP && base != SEPARATOR) {
+                table[c] = table[base];
+            }
+        }
+        return table;
+    }
+
+    private static boolean[] buildWordChars() {
+        boolean[] wordChars = new boolean[Character.MAX_VALUE + 1];
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            wordChars[c] = Character.isLetterOrDigit((char) c);
+        }
+        return wordChars;
+    }
+
+    // Minúscula sem acento, ou DROP para marcas e caracteres invisíveis
+    private static char baseOf(char c) {
+        int type = Character.getType(c);
+        if (type == Character.NON_SPACING_MARK || type == Character.ENCLOSING_MARK || type == Character.FORMAT) {
+            return DROP; // Acentos soltos, espaço de largura zero, hífen suave, BOM...
+        }
+        if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+            return ' '; // Quebras de linha, tabulações e espaços não separáveis
+        }
+        char lower = Character.toLowerCase(c);
+        if (lower >= 0x80 && lower < 0x2000 && Character.isLetter(lower)) {
+            String decomposed = Normalizer.normalize(String.valueOf(lower), Normalizer.Form.NFD);
+            char base = decomposed.charAt(0);
+            if (base != lower && Character.isLetter(base)) {
+                return Character.toLowerCase(base);
+            }
+        }
+        return lower;
+    }
+
+    private static void map(char[] table, String from, String to) {
+        for (int i = 0; i < from.length(); i++) {
+            table[from.charAt(i)] = to.charAt(i);
+        }
+    }
+}
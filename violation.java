@@ -4,7 +4,12 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "violations")
+@Table(name = "violations", indexes = {
+        // Índices compostos para as consultas paginadas por servidor/usuário (ordem: mais recentes primeiro)
+        @Index(name = "idx_violations_server_time", columnList = "server_id, timestamp"),
+        @Index(name = "idx_violations_user_time", columnList = "user_id, timestamp"),
+        @Index(name = "idx_violations_time", columnList = "timestamp")
+})
 public class Violation {
 
     @Id
@@ -24,7 +29,7 @@ public class Violation {
     private String userName;
 
     @Column(name = "violation_type", nullable = false)
-    private String violationType; // e.g., "PROFANE_WORD", "LINK", "INVITE"
+    private String violationType; // e.g., "PROFANE_WORD", "LINK", "INVITE", "FLOOD", "RAID"
 
     @Column(name = "reason", nullable = true, length = 500)
     private String reason; // Detalhes específicos da violação
@@ -0,0 +1,315 @@
+package com.glsecurity.bot.dao;
+
+import com.glsecurity.bot.config.BotConfig;
+import com.glsecurity.bot.metrics.BotMetrics;
+import com.glsecurity.bot.model.ArchiveSegment;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Retenção das violações: move as violações mais antigas que o prazo de cada servidor para o arquivo morto
+ * e as apaga da tabela {@code violations}.
+ *
+ * <p>O arquivo morto é particionado por mês: cada execução grava, para cada mês que tocar, um segmento novo
+ * ({@code <diretório>/2025-01/violations-<execução>.ndjson.gz}) no mesmo formato da exportação NDJSON, e registra
+ * o intervalo de datas e o número de linhas do segmento na tabela {@code archive_segments}. A exportação do
+ * arquivo morto ({@link #export}) usa esse índice para abrir só os segmentos do período pedido.</p>
+ *
+ * <p>O trabalho é feito em lotes limitados. Cada lote é lido sem a trava de escrita, escrito nos segmentos e
+ * sincronizado em disco; depois as linhas são apagadas e o índice é atualizado em uma única transação curta.
+ * O tamanho do lote se ajusta para que essa transação leve cerca de 10 ms, e uma pausa entre os lotes deixa as
+ * gravações de violações novas passarem. Se a execução for interrompida, as linhas ainda não apagadas continuam no banco e
+ * entram em um segmento novo na próxima execução.</p>
+ */
+public class ViolationArchiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(ViolationArchiver.class);
+    private static final long BATCH_PAUSE_MILLIS = 25;
+    private static final int MAX_BATCH_SIZE = 5_000;
+    private static final int MIN_BATCH_SIZE = 20;
+    private static final long TARGET_DELETE_NANOS = TimeUnit.MILLISECONDS.toNanos(10); // Tempo alvo com a trava de escrita
+    private static final int RECLAIM_PAGES_PER_STEP = 500; // ~2 MB com páginas de 4 KB por transação
+
+    private final DatabaseManager dbManager;
+    private final Path archiveDir;
+    private final int batchSize;
+    private int currentBatchSize; // Ajustado para que apagar um lote leve cerca de TARGET_DELETE_NANOS
+    private volatile boolean stopping;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "violation-retention");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Segmento aberto durante uma execução: o arquivo compactado e a entrada do índice
+    private static final class OpenSegment {
+        private final ArchiveSegment index;
+        private final FileOutputStream file;
+        private final Writer writer;
+
+        private OpenSegment(ArchiveSegment index, Path path) throws IOException {
+            this.index = index;
+            this.file = new FileOutputStream(path.toFile());
+            // syncFlush: cada flush fecha um bloco completo, legível mesmo que o arquivo seja cortado depois
+            this.writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(file, 64 * 1024, true), StandardCharsets.UTF_8), 64 * 1024);
+        }
+
+        private void sync() throws IOException {
+            writer.flush();
+            file.getFD().sync();
+        }
+    }
+
+    /**
+     * @param dbManager O acesso ao banco.
+     * @param archiveDir O diretório do arquivo morto.
+     * @param batchSize Violações arquivadas e apagadas por transação.
+     */
+    public ViolationArchiver(DatabaseManager dbManager, Path archiveDir, int batchSize) {
+        this.dbManager = dbManager;
+        this.archiveDir = archiveDir;
+        this.batchSize = Math.max(MIN_BATCH_SIZE, Math.min(batchSize, MAX_BATCH_SIZE));
+        this.currentBatchSize = this.batchSize;
+    }
+
+    /**
+     * Agenda a retenção periódica. A primeira execução acontece um minuto depois, fora da inicialização do bot.
+     */
+    public void start(long intervalMinutes) {
+        scheduler.scheduleWithFixedDelay(this::runSafely, 1, Math.max(1, intervalMinutes), TimeUnit.MINUTES);
+        logger.info("Retenção de violações agendada a cada {} min (arquivo morto em '{}').", intervalMinutes, archiveDir.toAbsolutePath());
+    }
+
+    private void runSafely() {
+        try {
+            runOnce();
+        } catch (Exception e) {
+            logger.error("Erro na retenção de violações: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Arquiva e apaga as violações vencidas de todos os servidores.
+     * O prazo global vem de {@code retention_days}; servidores com prazo próprio (positivo) usam o seu,
+     * e servidores com prazo negativo guardam tudo.
+     * @return O número de violações arquivadas.
+     */
+    public synchronized long runOnce() throws IOException {
+        long start = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        String runId = Long.toString(System.currentTimeMillis());
+        Map<String, OpenSegment> segments = new HashMap<>();
+        long total = 0;
+        try {
+            for (Map.Entry<String, Integer> override : dbManager.getRetentionOverrides().entrySet()) {
+                if (override.getValue() > 0) {
+                    total += archive(override.getKey(), now.minusDays(override.getValue()), runId, segments);
+                }
+            }
+            int globalDays = BotConfig.getRetentionDays();
+            if (globalDays > 0) {
+                total += archive(null, now.minusDays(globalDays), runId, segments);
+            }
+        } finally {
+            for (OpenSegment segment : segments.values()) {
+                try {
+                    segment.writer.close(); // Completa o gzip (trailer)
+                } catch (IOException e) {
+                    logger.warn("Erro ao fechar o segmento '{}': {}", segment.index.getFileName(), e.getMessage());
+                }
+            }
+        }
+        if (total > 0) {
+            long pages = reclaimFreePages();
+            logger.info("Retenção: {} violações arquivadas em {} segmentos e {} páginas liberadas em {} ms.",
+                    total, segments.size(), pages, (System.nanoTime() - start) / 1_000_000);
+        }
+        return total;
+    }
+
+    // Devolve o espaço das linhas apagadas em passos curtos, soltando a trava de escrita entre eles
+    private long reclaimFreePages() {
+        long pages = 0;
+        int freed;
+        while (!stopping && (freed = dbManager.reclaimFreePages(RECLAIM_PAGES_PER_STEP)) > 0) {
+            pages += freed;
+            try {
+                Thread.sleep(BATCH_PAUSE_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return pages;
+    }
+
+    // Arquiva em lotes as violações anteriores ao corte (de um servidor, ou de todos sem prazo próprio se serverId for null)
+    private long archive(String serverId, LocalDateTime cutoff, String runId, Map<String, OpenSegment> segments) throws IOException {
+        long count = 0;
+        while (!stopping) {
+            int limit = currentBatchSize;
+            List<String[]> rows = dbManager.readExpiredViolations(serverId, cutoff, limit);
+            if (rows.isEmpty()) {
+                break;
+            }
+            List<String[]> archived = new ArrayList<>(rows.size());
+            Map<String, OpenSegment> touched = new LinkedHashMap<>();
+            for (String[] row : rows) {
+                if (row[1] == null) {
+                    // Sem data não há segmento mensal nem intervalo para o índice; a linha fica no banco
+                    logger.warn("Violação {} sem data ignorada pela retenção.", row[0]);
+                    continue;
+                }
+                archived.add(row);
+                String period = row[1].substring(0, 7); // "2025-01-31T..." -> "2025-01"
+                OpenSegment segment = segments.get(period);
+                if (segment == null) {
+                    segment = openSegment(period, runId);
+                    segments.put(period, segment);
+                }
+                ViolationExport.writeRow(ViolationExport.Format.NDJSON, segment.writer, row);
+                segment.index.include(LocalDateTime.parse(row[1]));
+                touched.put(period, segment);
+            }
+            // As linhas precisam estar em disco antes de saírem do banco
+            List<ArchiveSegment> indexes = new ArrayList<>(touched.size());
+            for (OpenSegment segment : touched.values()) {
+                segment.sync();
+                indexes.add(segment.index);
+            }
+            if (archived.isEmpty()) {
+                break; // O lote inteiro ficou no banco: buscar de novo devolveria as mesmas linhas
+            }
+            // Só o tempo com a trava conta: a espera atrás de um lote do ViolationWriter não diz nada sobre a exclusão
+            long lockNanos = dbManager.deleteArchivedViolations(archived, indexes);
+            if (lockNanos < 0) {
+                throw new IOException("falha ao apagar o lote arquivado; a retenção será retomada na próxima execução");
+            }
+            adjustBatchSize(rows.size(), lockNanos);
+            count += archived.size();
+            BotMetrics.VIOLATIONS_ARCHIVED.add(archived.size());
+            if (rows.size() < limit) {
+                break;
+            }
+            try {
+                Thread.sleep(BATCH_PAUSE_MILLIS); // Deixa as gravações de violações novas passarem
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return count;
+    }
+
+    // Linhas grandes ou disco lento deixam cada exclusão mais demorada: o lote encolhe para não segurar a trava de escrita
+    private void adjustBatchSize(int rows, long deleteNanos) { // deleteNanos: tempo com a trava de escrita
+        if (deleteNanos > TARGET_DELETE_NANOS) {
+            currentBatchSize = Math.max(MIN_BATCH_SIZE, (int) (rows * TARGET_DELETE_NANOS / deleteNanos));
+        } else if (deleteNanos < TARGET_DELETE_NANOS / 2 && rows == currentBatchSize) {
+            currentBatchSize = Math.min(batchSize, currentBatchSize * 2);
+        }
+    }
+
+    private OpenSegment openSegment(String period, String runId) throws IOException {
+        Path dir = archiveDir.resolve(period);
+        Files.createDirectories(dir);
+        String fileName = period + "/violations-" + runId + ".ndjson.gz";
+        return new OpenSegment(new ArchiveSegment(fileName, period), archiveDir.resolve(fileName));
+    }
+
+    /**
+     * Exporta as violações arquivadas que atendem ao filtro, lendo só os segmentos que cobrem o período pedido.
+     * A ordem é cronológica dentro de cada segmento; os segmentos seguem a ordem da violação mais antiga de cada um.
+     * @return O número de violações exportadas.
+     */
+    public long export(ViolationExport.Filter filter, ViolationExport.Format format, OutputStream out) throws IOException {
+        long rows = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        ViolationExport.writeHeader(format, writer);
+        String[] values = new String[ViolationExport.COLUMNS.length];
+        for (ArchiveSegment segment : dbManager.getArchiveSegments()) {
+            if (!segment.overlaps(filter.from, filter.to)) {
+                continue;
+            }
+            Path path = archiveDir.resolve(segment.getFileName());
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(Files.newInputStream(path), 64 * 1024), StandardCharsets.UTF_8))) {
+                // Só as primeiras rowCount linhas foram confirmadas no banco
+                for (long line = 0; line < segment.getRowCount(); line++) {
+                    String json = reader.readLine();
+                    if (json == null) {
+                        logger.warn("Segmento '{}' tem menos linhas que o índice ({}).", segment.getFileName(), segment.getRowCount());
+                        break;
+                    }
+                    if (parse(json, values) && matches(filter, values)) {
+                        ViolationExport.writeRow(format, writer, values);
+                        rows++;
+                    }
+                }
+            } catch (EOFException e) {
+                logger.warn("Segmento '{}' cortado antes do fim: {}", segment.getFileName(), e.getMessage());
+            }
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private static boolean parse(String json, String[] values) {
+        JsonObject object = JsonParser.parseString(json).getAsJsonObject();
+        for (int i = 0; i < values.length; i++) {
+            JsonElement element = object.get(ViolationExport.COLUMNS[i]);
+            values[i] = element == null || element.isJsonNull() ? null : element.getAsString();
+        }
+        return values[1] != null;
+    }
+
+    private static boolean matches(ViolationExport.Filter filter, String[] values) {
+        if (filter.serverId != null && !filter.serverId.equals(values[2])) return false;
+        if (filter.userId != null && !filter.userId.equals(values[4])) return false;
+        if (filter.violationType != null && !filter.violationType.equals(values[6])) return false;
+        if (filter.from == null && filter.to == null) return true;
+        LocalDateTime timestamp = LocalDateTime.parse(values[1]);
+        return (filter.from == null || !timestamp.isBefore(filter.from)) && (filter.to == null || timestamp.isBefore(filter.to));
+    }
+
+    /**
+     * Interrompe a retenção entre dois lotes; o lote em andamento termina normalmente.
+     */
+    public void shutdown() {
+        stopping = true;
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.glsecurity.bot.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Contagem agregada de violações por servidor, tipo e intervalo de tempo (hora ou dia).
+ * Mantida de forma incremental pelo ViolationCounters, para que estatísticas não precisem de COUNT(*).
+ */
+@Entity
+@Table(name = "violation_counts")
+public class ViolationCount {
+
+    /**
+     * Granularidade do intervalo. Os intervalos são alinhados em milissegundos desde a época
+     * (os dias, portanto, começam à meia-noite UTC).
+     */
+    public enum BucketType {
+        HOUR(3_600_000L),
+        DAY(86_400_000L);
+
+        private final long millis;
+
+        BucketType(long millis) {
+            this.millis = millis;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        public long bucketStart(long epochMillis) {
+            return Math.floorDiv(epochMillis, millis) * millis;
+        }
+    }
+
+    @EmbeddedId
+    private Key key;
+
+    @Column(name = "violation_count", nullable = false)
+    private long count;
+
+    // Construtor padrão exigido pelo JPA
+    public ViolationCount() {
+    }
+
+    public ViolationCount(Key key, long count) {
+        this.key = key;
+        this.count = count;
+    }
+
+    public Key getKey() {
+        return key;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    @Override
+    public String toString() {
+        return "ViolationCount{" +
+               "key=" + key +
+               ", count=" + count +
+               '}';
+    }
+
+    /**
+     * Chave composta: servidor, tipo de violação, granularidade e início do intervalo.
+     */
+    @Embeddable
+    public static class Key implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        @Column(name = "server_id", nullable = false)
+        private String serverId;
+
+        @Column(name = "violation_type", nullable = false)
+        private String violationType;
+
+        @Enumerated(EnumType.STRING)
+        @Column(name = "bucket_type", nullable = false, length = 8)
+        private BucketType bucketType;
+
+        @Column(name = "bucket_start", nullable = false)
+        private long bucketStart; // Milissegundos desde a época
+
+        // Construtor padrão exigido pelo JPA
+        public Key() {
+        }
+
+        public Key(String serverId, String violationType, BucketType bucketType, long bucketStart) {
+            this.serverId = serverId;
+            this.violationType = violationType;
+            this.bucketType = bucketType;
+            this.bucketStart = bucketStart;
+        }
+
+        public String getServerId() {
+            return serverId;
+        }
+
+        public String getViolationType() {
+            return violationType;
+        }
+
+        public BucketType getBucketType() {
+            return bucketType;
+        }
+
+        public long getBucketStart() {
+            return bucketStart;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return bucketStart == other.bucketStart
+                   && Objects.equals(serverId, other.serverId)
+                   && Objects.equals(violationType, other.violationType)
+                   && bucketType == other.bucketType;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(serverId, violationType, bucketType, bucketStart);
+        }
+
+        @Override
+        public String toString() {
+            return serverId + "/" + violationType + "/" + bucketType + "@" + bucketStart;
+        }
+    }
+}
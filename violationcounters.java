@@ -0,0 +1,203 @@
+package com.glsecurity.bot.dao;
+
+import com.glsecurity.bot.model.Violation;
+import com.glsecurity.bot.model.ViolationCount;
+import com.glsecurity.bot.model.ViolationCount.BucketType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores de violações mantidos em memória de forma incremental: total, por servidor, por servidor e tipo,
+ * e por intervalo de tempo (hora/dia). Os incrementos usam LongAdder (contadores distribuídos entre células),
+ * então várias threads registram sem disputa, e as consultas de totais são O(1).
+ *
+ * <p>Os incrementos por intervalo são gravados periodicamente na tabela agregada {@code violation_counts}.
+ * Na inicialização, os totais são carregados dela, e ela é reconstruída a partir de {@code violations}
+ * se estiver vazia.</p>
+ */
+public class ViolationCounters {
+
+    private static final Logger logger = LoggerFactory.getLogger(ViolationCounters.class);
+
+    // Intervalos encerrados há mais que isso saem da memória depois de gravados
+    private static final long RETAIN_CLOSED_BUCKET_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private final DatabaseManager dbManager;
+    private final long flushIntervalSeconds;
+
+    private final LongAdder total = new LongAdder();
+    private final Map<String, LongAdder> byServer = new ConcurrentHashMap<>();
+    private final Map<TypeKey, LongAdder> byServerAndType = new ConcurrentHashMap<>();
+    private final Map<ViolationCount.Key, Pending> pendingBuckets = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "violation-counters-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Incrementos de um intervalo; "flushed" só é lido e escrito pela thread de gravação
+    private static final class Pending {
+        private final LongAdder count = new LongAdder();
+        private volatile long flushed;
+    }
+
+    private static final class TypeKey {
+        private final String serverId;
+        private final String violationType;
+
+        private TypeKey(String serverId, String violationType) {
+            this.serverId = serverId;
+            this.violationType = violationType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof TypeKey)) return false;
+            TypeKey other = (TypeKey) o;
+            return serverId.equals(other.serverId) && violationType.equals(other.violationType);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(serverId, violationType);
+        }
+    }
+
+    public ViolationCounters(DatabaseManager dbManager, long flushIntervalSeconds) {
+        this.dbManager = dbManager;
+        this.flushIntervalSeconds = flushIntervalSeconds;
+    }
+
+    /**
+     * Reconstrói a tabela agregada se necessário, carrega os totais e agenda a gravação periódica.
+     */
+    public void start() {
+        dbManager.rebuildViolationCountsIfMissing();
+        Map<String, Map<String, Long>> totals = dbManager.loadViolationTotals();
+        totals.forEach((serverId, byType) -> byType.forEach((type, count) -> {
+            byServerAndType.computeIfAbsent(new TypeKey(serverId, type), k -> new LongAdder()).add(count);
+            byServer.computeIfAbsent(serverId, k -> new LongAdder()).add(count);
+            total.add(count);
+        }));
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalSeconds, flushIntervalSeconds, TimeUnit.SECONDS);
+        logger.info("Contadores de violações carregados: {} violações em {} servidores.", total.sum(), byServer.size());
+    }
+
+    /**
+     * Registra violações já gravadas no banco.
+     */
+    public void record(Iterable<Violation> violations) {
+        for (Violation violation : violations) {
+            String serverId = violation.getServerId();
+            String type = violation.getViolationType();
+            long millis = Timestamp.valueOf(violation.getTimestamp()).getTime(); // Mesma representação gravada no SQLite
+
+            total.increment();
+            byServer.computeIfAbsent(serverId, k -> new LongAdder()).increment();
+            byServerAndType.computeIfAbsent(new TypeKey(serverId, type), k -> new LongAdder()).increment();
+            for (BucketType bucketType : BucketType.values()) {
+                ViolationCount.Key key = new ViolationCount.Key(serverId, type, bucketType, bucketType.bucketStart(millis));
+                // Incrementa dentro do compute: a remoção de intervalos gravados (em flush) não pode se intercalar
+                pendingBuckets.compute(key, (k, pending) -> {
+                    if (pending == null) pending = new Pending();
+                    pending.count.increment();
+                    return pending;
+                });
+            }
+        }
+    }
+
+    public long getTotal() {
+        return total.sum();
+    }
+
+    public long getTotal(String serverId) {
+        LongAdder adder = byServer.get(serverId);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    public long getTotal(String serverId, String violationType) {
+        LongAdder adder = byServerAndType.get(new TypeKey(serverId, violationType));
+        return adder == null ? 0 : adder.sum();
+    }
+
+    /**
+     * @return Contagem por tipo de violação de um servidor.
+     */
+    public Map<String, Long> getTotalsByType(String serverId) {
+        Map<String, Long> result = new HashMap<>();
+        byServerAndType.forEach((key, adder) -> {
+            if (key.serverId.equals(serverId)) result.put(key.violationType, adder.sum());
+        });
+        return result;
+    }
+
+    /**
+     * @return Incrementos ainda não gravados na tabela agregada para os intervalos de um servidor no período.
+     */
+    public Map<ViolationCount.Key, Long> getUnflushed(String serverId, BucketType bucketType, long fromMillis, long toMillis) {
+        Map<ViolationCount.Key, Long> result = new HashMap<>();
+        pendingBuckets.forEach((key, pending) -> {
+            long delta = pending.count.sum() - pending.flushed;
+            if (delta > 0 && key.getServerId().equals(serverId) && key.getBucketType() == bucketType
+                    && key.getBucketStart() >= fromMillis && key.getBucketStart() < toMillis) {
+                result.put(key, delta);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Grava na tabela agregada os incrementos acumulados desde a última gravação.
+     */
+    public synchronized void flush() {
+        try {
+            Map<ViolationCount.Key, Long> deltas = new HashMap<>();
+            Map<ViolationCount.Key, Long> snapshot = new HashMap<>();
+            pendingBuckets.forEach((key, pending) -> {
+                long current = pending.count.sum();
+                if (current > pending.flushed) {
+                    deltas.put(key, current - pending.flushed);
+                    snapshot.put(key, current);
+                }
+            });
+            if (!deltas.isEmpty()) {
+                if (!dbManager.addViolationCounts(deltas)) return; // Tenta de novo na próxima rodada
+                snapshot.forEach((key, current) -> pendingBuckets.get(key).flushed = current);
+            }
+
+            // Remove intervalos encerrados e totalmente gravados, mantendo a memória limitada. A conferência e a remoção
+            // são atômicas em relação a record(): um incremento atrasado (violação do transbordo em um intervalo já
+            // encerrado) ou acontece antes e mantém a entrada, ou depois e cria uma nova
+            long now = System.currentTimeMillis();
+            for (ViolationCount.Key key : pendingBuckets.keySet()) {
+                long closedAt = key.getBucketStart() + key.getBucketType().getMillis();
+                if (now - closedAt > RETAIN_CLOSED_BUCKET_MILLIS) {
+                    pendingBuckets.computeIfPresent(key, (k, pending) -> pending.count.sum() == pending.flushed ? null : pending);
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Erro ao gravar contadores de violações: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Interrompe a gravação periódica e grava os incrementos restantes.
+     */
+    public void shutdown() {
+        flusher.shutdownNow();
+        flush();
+    }
+}
@@ -0,0 +1,179 @@
+package com.glsecurity.bot.dao;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+/**
+ * Formatos e filtros da exportação de violações ({@link DatabaseManager#exportViolations}).
+ *
+ * <p>Cada linha é escrita diretamente no {@link Writer} assim que é lida do banco, campo a campo,
+ * sem criar entidades, sem montar a linha inteira em uma String e sem guardar as linhas já exportadas.</p>
+ */
+public final class ViolationExport {
+
+    private ViolationExport() {
+    }
+
+    public enum Format {
+        NDJSON("application/x-ndjson; charset=utf-8", "ndjson"), // Um objeto JSON por linha
+        CSV("text/csv; charset=utf-8", "csv");                    // RFC 4180, com cabeçalho
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * @return O formato com o nome informado (sem diferenciar maiúsculas), ou null se não existir.
+         */
+        public static Format fromName(String name) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(name)) return format;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Critérios da exportação; campos null não filtram. O período é [from, to).
+     */
+    public static final class Filter {
+        final String serverId;
+        final String userId;
+        final String violationType;
+        final LocalDateTime from;
+        final LocalDateTime to;
+
+        public Filter(String serverId, String userId, String violationType, LocalDateTime from, LocalDateTime to) {
+            this.serverId = serverId;
+            this.userId = userId;
+            this.violationType = violationType == null ? null : violationType.toUpperCase(Locale.ROOT);
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public String toString() {
+            return "Filter{" +
+                   "serverId=" + serverId +
+                   ", userId=" + userId +
+                   ", violationType=" + violationType +
+                   ", from=" + from +
+                   ", to=" + to +
+                   '}';
+        }
+    }
+
+    // Nomes na saída, na ordem das colunas de EXPORT_COLUMNS_SQL
+    static final String[] COLUMNS = {
+            "id", "timestamp", "serverId", "serverName", "userId", "userName", "violationType", "reason", "messageContent"
+    };
+    static final String EXPORT_COLUMNS_SQL =
+            "id, timestamp, server_id, server_name, user_id, user_name, violation_type, reason, message_content";
+
+    static void writeHeader(Format format, Writer out) throws IOException {
+        if (format == Format.CSV) {
+            out.write(String.join(",", COLUMNS));
+            out.write("\r\n");
+        }
+    }
+
+    /**
+     * Escreve uma linha.
+     * @param values Os valores na ordem de {@link #COLUMNS}; o primeiro (id) é numérico.
+     */
+    static void writeRow(Format format, Writer out, String[] values) throws IOException {
+        if (format == Format.CSV) {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) out.write(',');
+                writeCsv(out, values[i]);
+            }
+            out.write("\r\n");
+        } else {
+            out.write('{');
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) out.write(',');
+                out.write('"');
+                out.write(COLUMNS[i]);
+                out.write("\":");
+                if (i == 0) {
+                    out.write(values[i]); // id numérico
+                } else {
+                    writeJsonString(out, values[i]);
+                }
+            }
+            out.write("}\n");
+        }
+    }
+
+    private static void writeCsv(Writer out, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        // Textos de usuários começando com =, +, - ou @ viram fórmulas em planilhas; o apóstrofo os mantém como texto
+        boolean formula = !value.isEmpty() && "=+-@".indexOf(value.charAt(0)) >= 0;
+        boolean quote = formula;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        if (formula) out.write('\'');
+        int run = 0; // Início do trecho ainda não escrito: copia trechos inteiros em vez de caractere a caractere
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == '"') {
+                out.write(value, run, i + 1 - run);
+                run = i; // As aspas são escritas de novo no próximo trecho, ficando duplicadas
+            }
+        }
+        out.write(value, run, value.length() - run);
+        out.write('"');
+    }
+
+    private static void writeJsonString(Writer out, String value) throws IOException {
+        if (value == null) {
+            out.write("null");
+            return;
+        }
+        out.write('"');
+        int run = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String escape;
+            switch (c) {
+                case '"': escape = "\\\""; break;
+                case '\\': escape = "\\\\"; break;
+                case '\n': escape = "\\n"; break;
+                case '\r': escape = "\\r"; break;
+                case '\t': escape = "\\t"; break;
+                default:
+                    // Separadores de linha do Unicode quebram alguns leitores de NDJSON
+                    escape = c < 0x20 || c == 0x2028 || c == 0x2029 ? String.format("\\u%04x", (int) c) : null;
+            }
+            if (escape != null) {
+                out.write(value, run, i - run);
+                out.write(escape);
+                run = i + 1;
+            }
+        }
+        out.write(value, run, value.length() - run);
+        out.write('"');
+    }
+}
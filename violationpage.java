@@ -0,0 +1,75 @@
+package com.glsecurity.bot.dao;
+
+import com.glsecurity.bot.model.Violation;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Uma página de violações obtida por paginação por cursor (keyset).
+ * O cursor identifica a última violação da página (timestamp + id), então a próxima consulta
+ * continua a partir dela pelo índice, sem percorrer as linhas anteriores como faria um OFFSET.
+ */
+public class ViolationPage {
+
+    private final List<Violation> items;
+    private final String nextCursor;
+
+    public ViolationPage(List<Violation> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Violation> getItems() {
+        return items;
+    }
+
+    /**
+     * @return O cursor para buscar a próxima página, ou null se esta for a última.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+
+    /**
+     * Codifica a posição de uma violação como um cursor opaco.
+     */
+    public static String encodeCursor(Violation last) {
+        String raw = last.getTimestamp() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Posição decodificada de um cursor.
+     */
+    static final class Position {
+        final LocalDateTime timestamp;
+        final long id;
+
+        private Position(LocalDateTime timestamp, long id) {
+            this.timestamp = timestamp;
+            this.id = id;
+        }
+    }
+
+    /**
+     * @return A posição do cursor, ou null se o cursor for nulo ou vazio (primeira página).
+     * @throws IllegalArgumentException se o cursor for inválido.
+     */
+    static Position decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new Position(LocalDateTime.parse(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Cursor de paginação inválido: " + cursor, e);
+        }
+    }
+}
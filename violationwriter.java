@@ -0,0 +1,330 @@
+package com.glsecurity.bot.dao;
+
+import com.glsecurity.bot.model.Violation;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Grava violações de forma assíncrona: o caminho de moderação só enfileira, e uma thread dedicada
+ * agrupa várias violações em um único commit (inserção em lote via JDBC), pagando um fsync por lote
+ * em vez de um por violação.
+ *
+ * <p>O lote é gravado quando atinge {@code batchSize} ou quando a violação mais antiga dele espera
+ * {@code flushIntervalMillis}. Com a fila cheia, a política de transbordo decide o que acontece.</p>
+ */
+public class ViolationWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ViolationWriter.class);
+
+    /**
+     * O que fazer quando a fila em memória está cheia.
+     */
+    public enum OverflowPolicy {
+        BLOCK,        // Bloqueia quem enfileira até haver espaço (contrapressão no caminho de moderação)
+        DROP_OLDEST,  // Descarta a violação mais antiga da fila para abrir espaço
+        SPILL;        // Grava a violação em um arquivo local, reprocessado na próxima inicialização
+
+        public static OverflowPolicy fromConfig(String value) {
+            try {
+                return OverflowPolicy.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (Exception e) {
+                logger.warn("Política de transbordo inválida: {}. Usando SPILL.", value);
+                return SPILL;
+            }
+        }
+    }
+
+    private static final Gson SPILL_GSON = new GsonBuilder()
+            .registerTypeAdapter(LocalDateTime.class,
+                    (JsonSerializer<LocalDateTime>) (value, type, context) -> new JsonPrimitive(value.toString()))
+            .registerTypeAdapter(LocalDateTime.class,
+                    (JsonDeserializer<LocalDateTime>) (json, type, context) -> LocalDateTime.parse(json.getAsString()))
+            .create();
+
+    private final DatabaseManager dbManager;
+    private final BlockingQueue<Violation> queue;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final OverflowPolicy overflowPolicy;
+    private final Path spillFile;
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+
+    public ViolationWriter(DatabaseManager dbManager, int capacity, int batchSize, long flushIntervalMillis,
+                           OverflowPolicy overflowPolicy, Path spillFile) {
+        this.dbManager = dbManager;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.overflowPolicy = overflowPolicy;
+        this.spillFile = spillFile;
+        this.writerThread = new Thread(this::run, "violation-writer");
+        this.writerThread.setDaemon(true);
+    }
+
+    /**
+     * Reprocessa violações que transbordaram em execuções anteriores e inicia a thread de escrita.
+     */
+    public void start() {
+        replaySpillFile();
+        writerThread.start();
+        logger.info("Gravação assíncrona de violações iniciada (lote={}, intervalo={}ms, política={}).",
+                batchSize, flushIntervalMillis, overflowPolicy);
+    }
+
+    /**
+     * Enfileira uma violação para gravação. Só bloqueia com a política BLOCK e a fila cheia.
+     * @param violation A violação a ser gravada.
+     */
+    public void submit(Violation violation) {
+        if (!running) {
+            // Depois do desligamento, grava direto para não perder nada
+            flush(List.of(violation));
+            return;
+        }
+        if (queue.offer(violation)) {
+            flushIfStopped(violation);
+            return;
+        }
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    queue.put(violation);
+                    flushIfStopped(violation);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    dropped.incrementAndGet();
+                }
+                break;
+            case DROP_OLDEST:
+                while (!queue.offer(violation)) {
+                    if (queue.poll() != null && dropped.incrementAndGet() % 1000 == 1) {
+                        logger.warn("Fila de violações cheia. Violações mais antigas descartadas ({} no total).", dropped.get());
+                    }
+                }
+                flushIfStopped(violation);
+                break;
+            case SPILL:
+                spill(List.of(violation));
+                break;
+        }
+    }
+
+    // O desligamento pode ter começado entre a checagem de running e o enfileiramento, e a thread de escrita pode já
+    // ter esvaziado a fila e terminado. Se a violação ainda estiver na fila, quem a remover grava: ou a thread, ou aqui.
+    private void flushIfStopped(Violation violation) {
+        if (!running && queue.remove(violation)) {
+            flush(List.of(violation));
+        }
+    }
+
+    private void run() {
+        List<Violation> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Violation first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Espera o lote encher, no máximo até o prazo da primeira violação
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0 || !running) break;
+                    Violation next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                // A interrupção só acontece quando a drenagem excede o prazo; o restante da fila vai para o transbordo
+                flush(batch);
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Violation> batch) {
+        if (batch.isEmpty()) return;
+        if (dbManager.insertViolations(batch)) {
+            written.addAndGet(batch.size());
+            batches.incrementAndGet();
+            logger.debug("{} violações gravadas em um único commit.", batch.size());
+        } else if (spillFile != null) {
+            spill(batch);
+        } else {
+            dropped.addAndGet(batch.size());
+            logger.error("{} violações perdidas após falha na gravação em lote.", batch.size());
+        }
+    }
+
+    // Anexa as violações ao arquivo de transbordo, uma por linha em JSON
+    private synchronized void spill(List<Violation> violations) {
+        if (spillFile == null) {
+            dropped.addAndGet(violations.size());
+            return;
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (Violation violation : violations) {
+                writer.write(SPILL_GSON.toJson(violation));
+                writer.newLine();
+            }
+            spilled.addAndGet(violations.size());
+        } catch (IOException e) {
+            dropped.addAndGet(violations.size());
+            logger.error("Erro ao gravar violações no arquivo de transbordo '{}': {}", spillFile, e.getMessage());
+        }
+    }
+
+    // Grava as violações do arquivo de transbordo em lotes. Se um lote falhar, o arquivo é reescrito só com as
+    // violações ainda não gravadas, para que a próxima inicialização não insira (nem conte) de novo os lotes anteriores.
+    private synchronized void replaySpillFile() {
+        if (spillFile == null || !Files.exists(spillFile)) return;
+        List<Violation> pending = new ArrayList<>();
+        long replayed = 0;
+        Path remainder = null;
+        try {
+            try (BufferedReader reader = Files.newBufferedReader(spillFile, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) continue;
+                    try {
+                        pending.add(SPILL_GSON.fromJson(line, Violation.class));
+                    } catch (JsonParseException e) {
+                        logger.warn("Linha inválida ignorada no arquivo de transbordo '{}': {}", spillFile, e.getMessage());
+                        continue;
+                    }
+                    if (pending.size() == batchSize) {
+                        if (!dbManager.insertViolations(pending)) {
+                            remainder = writeRemainder(pending, reader);
+                            break;
+                        }
+                        replayed += pending.size();
+                        pending.clear();
+                    }
+                }
+                if (remainder == null && !pending.isEmpty()) {
+                    if (dbManager.insertViolations(pending)) {
+                        replayed += pending.size();
+                    } else {
+                        remainder = writeRemainder(pending, reader);
+                    }
+                }
+            }
+            if (remainder != null) {
+                Files.move(remainder, spillFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                logger.error("Falha ao reprocessar '{}' após {} violações gravadas. As restantes ficam no arquivo para a próxima inicialização.",
+                        spillFile, replayed);
+                return;
+            }
+            Files.delete(spillFile);
+            logger.info("{} violações pendentes do arquivo de transbordo '{}' gravadas no banco.", replayed, spillFile);
+        } catch (Exception e) {
+            logger.error("Erro ao reprocessar o arquivo de transbordo '{}' ({} violações já gravadas): {}",
+                    spillFile, replayed, e.getMessage(), e);
+        }
+    }
+
+    // Copia o lote que falhou e as linhas ainda não lidas para um arquivo temporário ao lado do de transbordo
+    private Path writeRemainder(List<Violation> failed, BufferedReader reader) throws IOException {
+        Path remainder = spillFile.resolveSibling(spillFile.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(remainder, StandardCharsets.UTF_8)) {
+            for (Violation violation : failed) {
+                writer.write(SPILL_GSON.toJson(violation));
+                writer.newLine();
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                writer.write(line);
+                writer.newLine();
+            }
+        }
+        return remainder;
+    }
+
+    /**
+     * Para de aceitar novas violações na fila e grava tudo o que estiver pendente.
+     * @param timeoutMillis Tempo máximo de espera pela drenagem.
+     */
+    public void shutdown(long timeoutMillis) {
+        running = false;
+        try {
+            writerThread.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writerThread.isAlive()) {
+            writerThread.interrupt();
+            logger.warn("A drenagem da fila de violações excedeu {}ms; {} violações vão para o transbordo.", timeoutMillis, queue.size());
+            List<Violation> remaining = new ArrayList<>();
+            queue.drainTo(remaining);
+            spill(remaining);
+        }
+        logger.info("Gravação de violações encerrada: {}", this);
+    }
+
+    public int queueSize() {
+        return queue.size();
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+
+    public long getBatches() {
+        return batches.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getSpilled() {
+        return spilled.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ViolationWriter{" +
+               "queued=" + queue.size() +
+               ", written=" + written.get() +
+               ", batches=" + batches.get() +
+               ", dropped=" + dropped.get() +
+               ", spilled=" + spilled.get() +
+               '}';
+    }
+}
@@ -0,0 +1,260 @@
+package com.glsecurity.bot.listener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.glsecurity.bot.metrics.BotMetrics;
+import com.glsecurity.bot.metrics.Counter;
+import com.glsecurity.bot.model.ServerSettings;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.entities.channel.ChannelType;
+import net.dv8tion.jda.api.entities.channel.concrete.PrivateChannel;
+import net.dv8tion.jda.api.entities.channel.middleman.GuildMessageChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Envia os avisos de violação (DM e/ou público) economizando chamadas REST durante rajadas.
+ *
+ * <p>Os canais privados já abertos ficam em cache por usuário, então {@code openPrivateChannel()} só vai ao
+ * Discord na primeira DM. Além disso, avisos repetidos para o mesmo usuário (DM, por servidor) ou para o
+ * mesmo usuário no mesmo canal (público) são agrupados: o primeiro aviso sai na hora e abre uma janela de
+ * {@code coalesceWindowMillis}; as violações seguintes dentro da janela viram uma única mensagem de resumo
+ * ("Mais 5 mensagens suas foram deletadas...") enviada no fim dela. A remoção automática dos avisos públicos
+ * ({@link ServerSettings#isAutoDeleteWarnings()}) vale também para o resumo.</p>
+ */
+public class WarningDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarningDispatcher.class);
+    private static final int MAX_REASONS_IN_SUMMARY = 5;
+
+    private final Cache<Long, PrivateChannel> privateChannels;
+    private final long coalesceWindowMillis;
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "warning-coalescer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Chamadas REST evitadas, por motivo
+    private final Counter savedByChannelCache = BotMetrics.REGISTRY.counter("glsecurity_rest_calls_saved_total",
+            "Chamadas REST evitadas pelo cache de canais privados e pelo agrupamento de avisos.", "reason", "private_channel_cache");
+    private final Counter savedByDmCoalescing = BotMetrics.REGISTRY.counter("glsecurity_rest_calls_saved_total",
+            "Chamadas REST evitadas pelo cache de canais privados e pelo agrupamento de avisos.", "reason", "coalesced_dm");
+    private final Counter savedByPublicCoalescing = BotMetrics.REGISTRY.counter("glsecurity_rest_calls_saved_total",
+            "Chamadas REST evitadas pelo cache de canais privados e pelo agrupamento de avisos.", "reason", "coalesced_public");
+
+    // Violações de um usuário ainda não avisadas dentro da janela atual
+    private static final class Window {
+        private final User user;
+        private final GuildMessageChannel channel; // null para DM
+        private final String guildName;
+        private ServerSettings settings;
+        private int suppressed;
+        private final Set<String> reasons = new LinkedHashSet<>();
+
+        private Window(User user, GuildMessageChannel channel, String guildName, ServerSettings settings) {
+            this.user = user;
+            this.channel = channel;
+            this.guildName = guildName;
+            this.settings = settings;
+        }
+    }
+
+    /**
+     * @param privateChannelCacheSize Máximo de canais privados em cache.
+     * @param coalesceWindowMillis Duração da janela de agrupamento; zero ou negativo desativa o agrupamento.
+     */
+    public WarningDispatcher(long privateChannelCacheSize, long coalesceWindowMillis) {
+        this.privateChannels = Caffeine.newBuilder()
+                .maximumSize(privateChannelCacheSize)
+                .expireAfterAccess(1, TimeUnit.HOURS)
+                .build();
+        this.coalesceWindowMillis = coalesceWindowMillis;
+    }
+
+    /**
+     * Avisa o autor da mensagem conforme o {@code warning_type} do servidor ("dm", "public" ou "both").
+     */
+    public void warn(Message message, ServerSettings settings, String reason) {
+        switch (settings.getWarningType().toLowerCase()) {
+            case "dm":
+                warnDirect(message, settings, reason);
+                break;
+            case "public":
+                warnPublic(message, settings, reason);
+                break;
+            case "both":
+                warnDirect(message, settings, reason);
+                warnPublic(message, settings, reason); // Só envia se o canal for de texto
+                break;
+        }
+    }
+
+    private void warnDirect(Message message, ServerSettings settings, String reason) {
+        String key = "dm:" + message.getGuild().getId() + ':' + message.getAuthor().getId();
+        if (openWindow(key, message, null, settings, reason)) {
+            sendDirect(message.getAuthor(), warningText(message.getGuild().getName(), reason));
+        }
+    }
+
+    private void warnPublic(Message message, ServerSettings settings, String reason) {
+        if (message.getChannelType() != ChannelType.TEXT && message.getChannelType() != ChannelType.NEWS) {
+            return;
+        }
+        GuildMessageChannel channel = (GuildMessageChannel) message.getChannel();
+        String key = "public:" + channel.getId() + ':' + message.getAuthor().getId();
+        if (openWindow(key, message, channel, settings, reason)) {
+            sendPublic(channel, message.getAuthor(), settings, warningText(message.getGuild().getName(), reason));
+        }
+    }
+
+    /**
+     * Abre a janela da chave ou acumula a violação nela.
+     * @return true se não havia janela aberta (o aviso deve ser enviado agora).
+     */
+    private boolean openWindow(String key, Message message, GuildMessageChannel channel, ServerSettings settings, String reason) {
+        if (coalesceWindowMillis <= 0) {
+            return true;
+        }
+        boolean[] opened = new boolean[1];
+        windows.compute(key, (k, window) -> {
+            if (window == null) {
+                opened[0] = true;
+                return new Window(message.getAuthor(), channel, message.getGuild().getName(), settings);
+            }
+            window.suppressed++;
+            window.settings = settings;
+            if (window.reasons.size() < MAX_REASONS_IN_SUMMARY) window.reasons.add(reason);
+            return window;
+        });
+        if (opened[0]) {
+            scheduler.schedule(() -> closeWindow(key), coalesceWindowMillis, TimeUnit.MILLISECONDS);
+        }
+        return opened[0];
+    }
+
+    // Fim da janela: envia um único resumo das violações acumuladas, se houver
+    private void closeWindow(String key) {
+        Window window = windows.remove(key);
+        if (window == null || window.suppressed == 0) {
+            return;
+        }
+        String text = String.format("❌ **GL Security Bot** ❌\n" +
+                "Mais %d %s no servidor **%s** devido a: **%s**.",
+                window.suppressed, window.suppressed == 1 ? "mensagem sua foi deletada" : "mensagens suas foram deletadas",
+                window.guildName, String.join("; ", window.reasons));
+        // N avisos viraram um resumo: N - 1 envios a menos (e, no público, também N - 1 remoções automáticas)
+        if (window.channel == null) {
+            sendDirect(window.user, text);
+            savedByDmCoalescing.add(window.suppressed - 1);
+        } else {
+            sendPublic(window.channel, window.user, window.settings, text);
+            savedByPublicCoalescing.add((window.suppressed - 1) * (window.settings.isAutoDeleteWarnings() ? 2L : 1L));
+        }
+        logger.info("{} avisos para {} agrupados em uma mensagem.", window.suppressed, window.user.getName());
+    }
+
+    private static String warningText(String guildName, String reason) {
+        return String.format("❌ **GL Security Bot** ❌\n" +
+                "Sua mensagem foi deletada no servidor **%s** devido a: **%s**.",
+                guildName, reason);
+    }
+
+    // Envia a DM usando o canal privado em cache; só abre um novo canal na primeira vez
+    private void sendDirect(User user, String text) {
+        long start = System.nanoTime();
+        PrivateChannel cached = privateChannels.getIfPresent(user.getIdLong());
+        if (cached != null) {
+            savedByChannelCache.increment();
+            sendDirect(cached, user, text, start);
+            return;
+        }
+        user.openPrivateChannel().queue(
+                channel -> {
+                    privateChannels.put(user.getIdLong(), channel);
+                    sendDirect(channel, user, text, start);
+                },
+                error -> {
+                    BotMetrics.restFailed("send_dm", start);
+                    logger.error("Falha ao abrir DM com {}: {}.", user.getName(), error.getMessage());
+                }
+        );
+    }
+
+    private void sendDirect(PrivateChannel channel, User user, String text, long start) {
+        channel.sendMessage(text).queue(
+                success -> {
+                    BotMetrics.restCompleted("send_dm", start);
+                    logger.info("Aviso enviado por DM para {}.", user.getName());
+                },
+                error -> {
+                    BotMetrics.restFailed("send_dm", start);
+                    privateChannels.invalidate(user.getIdLong()); // DMs fechadas ou canal inválido: reabre na próxima vez
+                    logger.error("Falha ao enviar aviso por DM para {}: {}.", user.getName(), error.getMessage());
+                }
+        );
+    }
+
+    // Envia o aviso no canal e agenda sua remoção automática
+    private void sendPublic(GuildMessageChannel channel, User user, ServerSettings settings, String text) {
+        long start = System.nanoTime();
+        channel.sendMessage(String.format("%s, %s", user.getAsMention(), text)).queue(
+                msg -> {
+                    BotMetrics.restCompleted("send_public_warning", start);
+                    logger.info("Aviso enviado publicamente no canal para {}.", user.getName());
+                    if (settings.isAutoDeleteWarnings()) {
+                        msg.delete().queueAfter(settings.getWarningDeleteDelay(), TimeUnit.SECONDS,
+                                s -> logger.info("Aviso público deletado automaticamente."),
+                                e -> {
+                                    BotMetrics.restFailed("delete_warning"); // Agendado com atraso: só a falha é contada
+                                    logger.error("Falha ao deletar aviso público automaticamente: {}", e.getMessage());
+                                }
+                        );
+                    }
+                },
+                error -> {
+                    BotMetrics.restFailed("send_public_warning", start);
+                    logger.error("Falha ao enviar aviso público para {}: {}.", user.getName(), error.getMessage());
+                }
+        );
+    }
+
+    /**
+     * @return O total de chamadas REST evitadas desde o início.
+     */
+    public long getRestCallsSaved() {
+        return savedByChannelCache.get() + savedByDmCoalescing.get() + savedByPublicCoalescing.get();
+    }
+
+    /**
+     * Envia os resumos das janelas abertas e encerra o agendador.
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+        for (String key : windows.keySet()) {
+            closeWindow(key);
+        }
+        logger.info("Avisos: {}", this);
+    }
+
+    @Override
+    public String toString() {
+        return "WarningDispatcher{" +
+               "restCallsSaved=" + getRestCallsSaved() +
+               ", privateChannelCache=" + savedByChannelCache.get() +
+               ", coalescedDm=" + savedByDmCoalescing.get() +
+               ", coalescedPublic=" + savedByPublicCoalescing.get() +
+               ", cachedChannels=" + privateChannels.estimatedSize() +
+               '}';
+    }
+}
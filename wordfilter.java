@@ -0,0 +1,108 @@
+package com.glsecurity.bot.filter;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Dicionário de palavras ofensivas de um servidor: o matcher global (compartilhado, nunca copiado), um matcher
+ * pequeno com as palavras adicionadas pelo servidor e o conjunto de termos globais isentos nele.
+ *
+ * <p>A instância é imutável; mudar as listas do servidor ou o dicionário global produz uma nova instância,
+ * que o {@link GuildWordFilters} publica no lugar da anterior.</p>
+ */
+public final class WordFilter {
+
+    private final ProfanityMatcher global;
+    private final ProfanityMatcher custom; // null se o servidor não adicionou palavras
+    private final Set<String> exemptions;  // Termos normalizados
+
+    // Listas de origem, comparadas por identidade para saber se o filtro ainda corresponde às configurações
+    private final List<String> customWords;
+    private final List<String> exemptWords;
+
+    private WordFilter(ProfanityMatcher global, ProfanityMatcher custom, Set<String> exemptions,
+                       List<String> customWords, List<String> exemptWords) {
+        this.global = global;
+        this.custom = custom;
+        this.exemptions = exemptions;
+        this.customWords = customWords;
+        this.exemptWords = exemptWords;
+    }
+
+    /**
+     * @return Um filtro só com o dicionário global.
+     */
+    public static WordFilter of(ProfanityMatcher global) {
+        return new WordFilter(global, null, Collections.emptySet(), Collections.emptyList(), Collections.emptyList());
+    }
+
+    /**
+     * Compila as listas de um servidor sobre o dicionário global.
+     * @param global O matcher global.
+     * @param customWords Palavras adicionadas pelo servidor.
+     * @param exemptWords Palavras do dicionário global que o servidor não quer bloquear.
+     * @return O filtro compilado.
+     */
+    public static WordFilter compile(ProfanityMatcher global, List<String> customWords, List<String> exemptWords) {
+        ProfanityMatcher custom = customWords.isEmpty() ? null : ProfanityMatcher.compile(customWords, global.isWholeWords());
+        if (custom != null && custom.size() == 0) custom = null;
+        Set<String> exemptions = new HashSet<>();
+        for (String word : exemptWords) {
+            String normalized = TextNormalizer.normalizeTerm(word);
+            if (!normalized.isEmpty()) exemptions.add(normalized);
+        }
+        return new WordFilter(global, custom, exemptions.isEmpty() ? Collections.emptySet() : exemptions,
+                customWords, exemptWords);
+    }
+
+    /**
+     * @return Este filtro sobre outro dicionário global e/ou outras instâncias das mesmas listas, reaproveitando o
+     * matcher e as isenções já compilados.
+     */
+    WordFilter rebind(ProfanityMatcher global, List<String> customWords, List<String> exemptWords) {
+        return new WordFilter(global, custom, exemptions, customWords, exemptWords);
+    }
+
+    /** Verdadeiro se o filtro foi construído exatamente a partir destas listas e deste dicionário global. */
+    boolean isBuiltFrom(ProfanityMatcher global, List<String> customWords, List<String> exemptWords) {
+        return this.global == global && this.customWords == customWords && this.exemptWords == exemptWords;
+    }
+
+    /** Verdadeiro se as listas têm o mesmo conteúdo das usadas na compilação (as instâncias podem ser outras). */
+    boolean hasSameWords(List<String> customWords, List<String> exemptWords) {
+        return this.customWords.equals(customWords) && this.exemptWords.equals(exemptWords);
+    }
+
+    ProfanityMatcher global() {
+        return global;
+    }
+
+    ProfanityMatcher custom() {
+        return custom;
+    }
+
+    boolean isExempt(String normalizedTerm) {
+        return !exemptions.isEmpty() && exemptions.contains(normalizedTerm);
+    }
+
+    /**
+     * @return Número de palavras adicionadas pelo servidor (após a normalização).
+     */
+    public int customSize() {
+        return custom == null ? 0 : custom.size();
+    }
+
+    /**
+     * @return Número de termos isentos.
+     */
+    public int exemptionCount() {
+        return exemptions.size();
+    }
+
+    @Override
+    public String toString() {
+        return "WordFilter{global=" + global.size() + ", custom=" + customSize() + ", exempt=" + exemptionCount() + '}';
+    }
+}